@@ -0,0 +1,41 @@
+package db.migration;
+
+import edu.final_project.hot_properties.services.geo.GeoPoint;
+import edu.final_project.hot_properties.services.geo.ZipCentroids;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/// Places the listings created before coordinates were stored (V1.1) on the map, once. The
+/// centroids come from the bundled dataset, so this runs as a Java migration; listings
+/// created since are located when they are saved. Flyway finds it on the classpath next to
+/// the SQL migrations and creates it itself, so it loads the dataset rather than taking the
+/// application's bean.
+public class V9__Backfill_property_coordinates extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        ZipCentroids zipCentroids = new ZipCentroids();
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("select id, zip_code from properties where latitude is null");
+             PreparedStatement update = connection.prepareStatement(
+                     "update properties set latitude = ?, longitude = ? where id = ?")) {
+            while (rows.next()) {
+                GeoPoint point = zipCentroids.find(rows.getString("zip_code"));
+                if (point == null) {
+                    continue;
+                }
+                update.setDouble(1, point.latitude());
+                update.setDouble(2, point.longitude());
+                update.setLong(3, rows.getLong("id"));
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+}
@@ -2,8 +2,10 @@ package edu.final_project.hot_properties;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class HotPropertiesApplication {
 
 	public static void main(String[] args) {
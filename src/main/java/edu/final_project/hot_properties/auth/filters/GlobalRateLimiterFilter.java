@@ -1,6 +1,7 @@
 package edu.final_project.hot_properties.auth.filters;
 
 
+import edu.final_project.hot_properties.services.images.ImageStore;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +22,13 @@ public class GlobalRateLimiterFilter extends OncePerRequestFilter {
 
     private final Map<String, RequestWindow> ipRequests = new ConcurrentHashMap<>();
 
+    // a photo-heavy page fires dozens of image requests, which are cached forever and sent with
+    // sendfile; counting them would throttle ordinary browsing
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + ImageStore.URL_PREFIX);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
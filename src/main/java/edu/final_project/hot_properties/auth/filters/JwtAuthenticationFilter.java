@@ -1,6 +1,7 @@
 package edu.final_project.hot_properties.auth.filters;
 
 import edu.final_project.hot_properties.auth.jwt.JwtUtil;
+import edu.final_project.hot_properties.services.images.ImageStore;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -34,6 +35,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         this.userDetailsService = userDetailsService;
     }
 
+    // public, content-addressed images need no user
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + ImageStore.URL_PREFIX);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
             HttpServletResponse response,
@@ -0,0 +1,52 @@
+package edu.final_project.hot_properties.auth.filters;
+
+import edu.final_project.hot_properties.services.images.ImageStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// 503 until the startup data phase is done (see StartupDataLoader), for load balancers that
+// don't check readiness; photos are plain files and are served regardless
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupReadinessFilter extends OncePerRequestFilter {
+
+    private static final int RETRY_AFTER_SECONDS = 5;
+
+    private final ApplicationAvailability availability;
+
+    public StartupReadinessFilter(ApplicationAvailability availability) {
+        this.availability = availability;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC
+                || request.getRequestURI().startsWith(request.getContextPath() + ImageStore.URL_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+        response.setContentType("application/json");
+        response.getWriter().write("""
+            {
+              "error": "Service Unavailable",
+              "message": "The application is starting up. Please retry shortly."
+            }
+        """);
+    }
+}
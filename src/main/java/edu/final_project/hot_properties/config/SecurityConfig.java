@@ -6,6 +6,7 @@ import edu.final_project.hot_properties.auth.CustomAuthenticationEntryPoint;
 import edu.final_project.hot_properties.auth.filters.GlobalRateLimiterFilter;
 import edu.final_project.hot_properties.auth.filters.JwtAuthenticationFilter;
 import edu.final_project.hot_properties.services.CustomUserDetailsService;
+import edu.final_project.hot_properties.services.images.ImageStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -52,6 +53,9 @@ public class SecurityConfig {
 
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        // image blobs are public; spring security keeps the controller's immutable
+                        // Cache-Control, its no-cache headers are only added when none is set
+                        .requestMatchers(ImageStore.URL_PREFIX + "**").permitAll()
                         .requestMatchers("/login").permitAll()
                         .requestMatchers("/register").permitAll()
                         //need basic auth
@@ -74,12 +78,14 @@ public class SecurityConfig {
                         //BUYER specific
                         .requestMatchers("/properties/view/**").hasAuthority("BUYER")
                         .requestMatchers("/properties/list").hasAnyAuthority("BUYER")
+                        .requestMatchers("/properties/suggest").hasAnyAuthority("BUYER")
                         .requestMatchers("/favorites/**").hasAuthority("BUYER")
                         .requestMatchers("/messages/buyer").hasAuthority("BUYER")
                         .requestMatchers("/messages/send").hasAuthority("BUYER")
                         
                         //admin specific
                         .requestMatchers("/agents/**").hasAuthority("ADMIN")
+                        .requestMatchers("/admin/**").hasAuthority("ADMIN")
 
 
                         .requestMatchers("/", "/index", "/css/**", "/js/**", "/images/**", "/webjars/**").permitAll()
@@ -0,0 +1,69 @@
+package edu.final_project.hot_properties.controllers;
+
+import edu.final_project.hot_properties.services.imports.ListingImportJob;
+import edu.final_project.hot_properties.services.imports.ListingImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+// bulk listing import for admins: post a csv/json file, then poll the job for progress
+@RestController
+@RequestMapping("/admin/import")
+public class AdminImportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminImportController.class);
+
+    private final ListingImporter listingImporter;
+
+    @Autowired
+    public AdminImportController(ListingImporter listingImporter) {
+        this.listingImporter = listingImporter;
+    }
+
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> startImport(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "The import file is empty."));
+        }
+        try (InputStream in = file.getInputStream()) {
+            ListingImportJob job = listingImporter.submit(in, file.getOriginalFilename());
+            logger.info("Listing import {} queued for {}", job.getId(), file.getOriginalFilename());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.snapshot());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Failed to queue listing import: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Unable to read the import file."));
+        }
+    }
+
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> importProgress(@PathVariable String jobId) {
+        return listingImporter.job(jobId)
+                .map(job -> ResponseEntity.ok(job.snapshot()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping
+    public List<Map<String, Object>> imports() {
+        return listingImporter.jobs().stream().map(ListingImportJob::snapshot).toList();
+    }
+}
@@ -0,0 +1,83 @@
+package edu.final_project.hot_properties.controllers;
+
+import edu.final_project.hot_properties.initializers.StartupDataLoader;
+import edu.final_project.hot_properties.services.favorites.FavoriteIdCache;
+import edu.final_project.hot_properties.services.images.ImageFileCache;
+import edu.final_project.hot_properties.services.images.ImageFileJanitor;
+import edu.final_project.hot_properties.services.search.BrowseResultCache;
+import edu.final_project.hot_properties.services.search.SimilarListingsCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// operational counters for admins, served as json
+@RestController
+@RequestMapping("/admin/stats")
+public class AdminStatsController {
+
+    private final BrowseResultCache browseResultCache;
+    private final SimilarListingsCache similarListingsCache;
+    private final Statistics hibernateStatistics;
+    private final ImageFileCache imageFileCache;
+    private final ImageFileJanitor imageFileJanitor;
+    private final StartupDataLoader startupDataLoader;
+    private final FavoriteIdCache favoriteIdCache;
+
+    @Autowired
+    public AdminStatsController(BrowseResultCache browseResultCache, SimilarListingsCache similarListingsCache,
+                                EntityManagerFactory entityManagerFactory, ImageFileCache imageFileCache,
+                                ImageFileJanitor imageFileJanitor, StartupDataLoader startupDataLoader,
+                                FavoriteIdCache favoriteIdCache) {
+        this.browseResultCache = browseResultCache;
+        this.similarListingsCache = similarListingsCache;
+        this.hibernateStatistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.imageFileCache = imageFileCache;
+        this.imageFileJanitor = imageFileJanitor;
+        this.startupDataLoader = startupDataLoader;
+        this.favoriteIdCache = favoriteIdCache;
+    }
+
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("browseCache", browseResultCache.stats());
+        stats.put("similarListingsCache", similarListingsCache.stats());
+        stats.put("favoritesCache", favoriteIdCache.stats());
+        stats.put("secondLevelCache", secondLevelCacheStats());
+        stats.put("imageFileCache", imageFileCache.stats());
+        stats.put("imageFiles", imageFileJanitor.stats());
+        stats.put("startup", startupDataLoader.stats());
+        return stats;
+    }
+
+    // one entry per hibernate cache region, see ehcache.xml
+    private Map<String, Object> secondLevelCacheStats() {
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : hibernateStatistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStats = hibernateStatistics.getCacheRegionStatistics(region);
+            if (regionStats == null) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hits", regionStats.getHitCount());
+            entry.put("misses", regionStats.getMissCount());
+            entry.put("puts", regionStats.getPutCount());
+            regions.put(region, entry);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("regions", regions);
+        stats.put("queryCacheHits", hibernateStatistics.getQueryCacheHitCount());
+        stats.put("queryCacheMisses", hibernateStatistics.getQueryCacheMissCount());
+        return stats;
+    }
+}
@@ -0,0 +1,147 @@
+package edu.final_project.hot_properties.controllers;
+
+import edu.final_project.hot_properties.services.images.ImageFileCache;
+import edu.final_project.hot_properties.services.images.ImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// serves the image blobs: names are content hashes, so every response is cacheable forever
+@Controller
+public class ImageController {
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private static final String CACHE_FOREVER = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic().immutable().getHeaderValue();
+
+    // set by tomcat when the connector can hand a file region straight to the socket
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ImageStore imageStore;
+    private final ImageFileCache imageFileCache;
+
+    @Autowired
+    public ImageController(ImageStore imageStore, ImageFileCache imageFileCache) {
+        this.imageStore = imageStore;
+        this.imageFileCache = imageFileCache;
+    }
+
+    @GetMapping(ImageStore.URL_PREFIX + "{filename}")
+    public void serveImage(@PathVariable String filename, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (!ImageStore.BLOB_NAME.matcher(filename).matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        ImageFileCache.OpenFile file = imageFileCache.acquire(filename, imageStore.resolve(filename));
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try {
+            String etag = "\"" + filename + "\"";
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            response.setContentType(MediaTypeFactory.getMediaType(filename)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+            long size = file.size();
+            long start = 0;
+            long end = size; // exclusive
+            String range = request.getHeader(HttpHeaders.RANGE);
+            String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+            // a range is only honoured for the same representation; several ranges get the whole file
+            if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                Matcher m = SINGLE_RANGE.matcher(range.trim());
+                if (m.matches() && !(m.group(1).isEmpty() && m.group(2).isEmpty())) {
+                    try {
+                        if (m.group(1).isEmpty()) {
+                            start = Math.max(0, size - Long.parseLong(m.group(2))); // last n bytes
+                        } else {
+                            start = Long.parseLong(m.group(1));
+                            if (!m.group(2).isEmpty()) {
+                                end = Math.min(size, Long.parseLong(m.group(2)) + 1);
+                            }
+                        }
+                    } catch (NumberFormatException e) {
+                        // more digits than a long holds, no such position in any file
+                        start = size;
+                    }
+                    if (start >= size || start >= end) {
+                        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                        return;
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+                }
+            }
+            response.setContentLengthLong(end - start);
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // tomcat sends the region with sendfile once we return, the bytes never enter the jvm
+                request.setAttribute(SENDFILE_FILENAME, file.path().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end);
+                return;
+            }
+            // no sendfile (other containers, tests): transfer from the shared channel
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                long sent = file.channel().transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+            out.flush();
+        } finally {
+            file.release();
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
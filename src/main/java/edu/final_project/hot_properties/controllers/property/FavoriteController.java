@@ -1,6 +1,6 @@
 package edu.final_project.hot_properties.controllers.property;
 
-import edu.final_project.hot_properties.entities.Property;
+import edu.final_project.hot_properties.dtos.PropertyCard;
 import edu.final_project.hot_properties.exceptions.InvalidFavoriteParameterException;
 import edu.final_project.hot_properties.services.FavoriteService;
 import edu.final_project.hot_properties.services.PropertyService;
@@ -81,7 +81,7 @@ public class FavoriteController {
     @GetMapping("/favorites")
     public String viewMyFavorites(Model model, RedirectAttributes redirectAttributes) {
         try {
-            List<Property> favorites = favoriteService.getMyFavorites();
+            List<PropertyCard> favorites = favoriteService.getMyFavorites();
             model.addAttribute("favorites", favorites);
             return "property/view-favorites";
         } catch (InvalidFavoriteParameterException e) {
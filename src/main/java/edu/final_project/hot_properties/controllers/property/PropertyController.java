@@ -1,9 +1,12 @@
 package edu.final_project.hot_properties.controllers.property;
 
 import edu.final_project.hot_properties.dtos.AddPropertyDto;
+import edu.final_project.hot_properties.dtos.LocationSuggestion;
 import edu.final_project.hot_properties.dtos.PropertyFilterDto;
+import edu.final_project.hot_properties.dtos.PropertyPage;
 import edu.final_project.hot_properties.entities.Property;
 import edu.final_project.hot_properties.entities.User;
+import edu.final_project.hot_properties.exceptions.EditConflictException;
 import edu.final_project.hot_properties.exceptions.InvalidOperationException;
 import edu.final_project.hot_properties.exceptions.InvalidPropertyImageParameterException;
 import edu.final_project.hot_properties.exceptions.InvalidPropertyParameterException;
@@ -11,21 +14,28 @@ import edu.final_project.hot_properties.exceptions.NotFoundException;
 import edu.final_project.hot_properties.services.FavoriteService;
 import edu.final_project.hot_properties.services.PropertyService;
 import edu.final_project.hot_properties.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/properties")
@@ -53,6 +63,7 @@ public class PropertyController {
             User currentAgent = userService.getCurrentUserContext().user();
             List<Property> properties = propertyService.getPropertiesByAgent(currentAgent.getId());
             model.addAttribute("properties", properties);
+            model.addAttribute("viewCounts", propertyService.getViewCounts(properties));
         } catch (NotFoundException | InvalidOperationException e) {
             logger.error(e.getMessage());
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
@@ -112,6 +123,8 @@ public class PropertyController {
                 property.getZipCode(),
                 property.getSize(),
                     property.getDescription());
+            addPropertyDto.setVersion(property.getVersion()); // sent back so a stale save is rejected
+            addPropertyDto.setCoverImageId(property.getCoverImageId());
                     
                     model.addAttribute("propertyId", id); // adding id to model
                     model.addAttribute("property", property);
@@ -131,6 +144,7 @@ public class PropertyController {
     BindingResult bindingResult,
             @RequestParam(value = "newImages", required = false) List<MultipartFile> newImages,
             Model model,
+            HttpServletResponse response,
             RedirectAttributes redirectAttributes) {
                 
                 // refecthcing property for checkig images present
@@ -156,6 +170,30 @@ public class PropertyController {
             propertyService.updateProperty(id, addPropertyDto, newImages);
             redirectAttributes.addFlashAttribute("successMessage", "Property updated successfully!");
             return "redirect:/properties/manage";
+        } catch (EditConflictException e) {
+            logger.warn("Edit conflict on property {}: {}", id, e.getMessage());
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            // reloading the current state so the agent edits on top of the other change
+            try {
+                Property property = propertyService.getPropertyById(id);
+                AddPropertyDto current = new AddPropertyDto(
+                        property.getTitle(),
+                        property.getPrice(),
+                        property.getLocation(),
+                        property.getZipCode(),
+                        property.getSize(),
+                        property.getDescription());
+                current.setVersion(property.getVersion());
+                current.setCoverImageId(property.getCoverImageId());
+                model.addAttribute("property", property);
+                model.addAttribute("addPropertyDto", current);
+            } catch (NotFoundException exception) {
+                redirectAttributes.addFlashAttribute("errorMessage", exception.getMessage());
+                return "redirect:/properties/manage";
+            }
+            model.addAttribute("propertyId", id);
+            model.addAttribute("errorMessage", e.getMessage());
+            return "property/edit-property";
         } catch (NotFoundException | IOException e) {
             logger.error("Error updating property: {}", e.getMessage());
 
@@ -197,32 +235,65 @@ public class PropertyController {
     @GetMapping("/list")
     public String listProperties(@ModelAttribute("propertyFilterDto") PropertyFilterDto propertyFilterDto,
     Model model,
-    RedirectAttributes redirectAttributes) {
+    RedirectAttributes redirectAttributes,
+    HttpServletRequest request,
+    HttpServletResponse response,
+    WebRequest webRequest) {
+
+        // answered with 304 before searching when nothing in the catalog changed
+        allowRevalidation(response);
+        if (!hasFlashMessages(request)
+                && webRequest.checkNotModified(propertyService.getBrowseETag(request.getQueryString()))) {
+            return null;
+        }
 
-        List<Property> properties;
+        PropertyPage page;
         try {
-            properties = propertyService.getFilteredAndSortedProperties(propertyFilterDto);
+            page = propertyService.getFilteredAndSortedProperties(propertyFilterDto);
         } catch (InvalidPropertyParameterException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
             return "redirect:/properties/list";
         }
 
-        model.addAttribute("properties", properties);
+        model.addAttribute("properties", page.properties());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("facets", page.facets());
         model.addAttribute("propertyFilterDto", propertyFilterDto);
         
         return "property/browse-properties";
     }
     
+    // typeahead for the location / zip filters, answered from memory
+    @GetMapping("/suggest")
+    @ResponseBody
+    public List<LocationSuggestion> suggest(@RequestParam("q") String q,
+                                            @RequestParam(value = "limit", required = false) Integer limit) {
+        return propertyService.suggestLocations(q, limit);
+    }
+
     // view details
 //    @PreAuthorize("hasAuthority('BUYER')")
     @GetMapping("/view/{id}")
-    public String viewPropertyDetails(@PathVariable("id") Long id, Model model, RedirectAttributes redirectAttributes) {
+    public String viewPropertyDetails(@PathVariable("id") Long id, Model model, RedirectAttributes redirectAttributes,
+                                      HttpServletRequest request, HttpServletResponse response,
+                                      WebRequest webRequest) {
+        // the validator comes from a single-column query, the entity is only loaded on a miss
+        allowRevalidation(response);
+        if (!hasFlashMessages(request)) {
+            String etag = propertyService.getDetailsETag(id);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                propertyService.recordView(id); // a revalidated page is still a view
+                return null;
+            }
+        }
         try {
             Property property = propertyService.getPropertyById(id);
+            propertyService.recordView(id);
             model.addAttribute("property", property);
             // checking if this property if favorite for current user
             boolean isFavorite = favoriteService.isPropertyFavoritedByUser(id);
             model.addAttribute("isFavorite", isFavorite);
+            model.addAttribute("similarProperties", propertyService.getSimilarProperties(id));
             return "property/view-details";
         } catch (NotFoundException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
@@ -251,6 +322,15 @@ public class PropertyController {
         
         return "redirect:/properties/edit/" + propertyId;
     }
-    
-}
 
+    // replaces spring security's no-store default so browsers keep the page and send If-None-Match
+    private static void allowRevalidation(HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+    }
+
+    // a page carrying a one-off flash message has to be rendered, never revalidated
+    private static boolean hasFlashMessages(HttpServletRequest request) {
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(request);
+        return flash != null && !flash.isEmpty();
+    }
+}
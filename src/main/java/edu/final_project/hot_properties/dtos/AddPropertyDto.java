@@ -38,6 +38,12 @@ public class AddPropertyDto {
     // for images
     private List<MultipartFile> files;
 
+    // listing version the edit form was loaded at, null when adding
+    private Long version;
+
+    // image picked as the card photo on the edit form, null keeps the current one
+    private Long coverImageId;
+
     public AddPropertyDto(String title, Double price, String location, String zipCode, Integer size, String description) {
         this.title = title;
         this.description = description;
@@ -59,6 +65,22 @@ public class AddPropertyDto {
         this.files = files;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getCoverImageId() {
+        return coverImageId;
+    }
+
+    public void setCoverImageId(Long coverImageId) {
+        this.coverImageId = coverImageId;
+    }
+
     // Getters and Setters
     public String getTitle() {
         return title;
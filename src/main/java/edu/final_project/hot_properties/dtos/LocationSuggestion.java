@@ -0,0 +1,5 @@
+package edu.final_project.hot_properties.dtos;
+
+// one typeahead completion; kind is "zip" or "location", listings is how many listings carry it
+public record LocationSuggestion(String value, String kind, int listings) {
+}
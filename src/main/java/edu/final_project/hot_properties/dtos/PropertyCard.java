@@ -0,0 +1,6 @@
+package edu.final_project.hot_properties.dtos;
+
+// flat read model for the browse cards: just what the card shows, no entity graph
+public record PropertyCard(Long id, String title, Double price, String location, Integer size, String zipCode,
+                           String coverImage, Integer favoritesCount) {
+}
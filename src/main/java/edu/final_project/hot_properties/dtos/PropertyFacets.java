@@ -0,0 +1,20 @@
+package edu.final_project.hot_properties.dtos;
+
+import java.util.List;
+import java.util.Map;
+
+/// Listing counts per zip code, price band and size band for the current browse filter.
+/// Each dimension is counted with the other filters applied but not its own, so picking a
+/// zip still shows how many listings the neighbouring zips have.
+public record PropertyFacets(Map<String, Integer> zipCodes, List<Bucket> priceBands, List<Bucket> sizeBands) {
+
+    public static final PropertyFacets EMPTY = new PropertyFacets(Map.of(), List.of(), List.of());
+
+    // from is inclusive, to is exclusive and null for the open-ended top band
+    public record Bucket(String label, Double from, Double to, int count) {
+    }
+
+    public boolean isEmpty() {
+        return zipCodes.isEmpty() && priceBands.isEmpty() && sizeBands.isEmpty();
+    }
+}
@@ -1,13 +1,29 @@
 package edu.final_project.hot_properties.dtos;
 
 public class PropertyFilterDto {
+    private String q; // keywords matched against title, description and location
     private String zipCode;
     private Integer minSqft;
     private Double minPrice;
     private Double maxPrice;
     private String sortOrder;
+    private Integer pageSize;
+    private String next; // opaque keyset token for the next page
+    // radius search around lat/lng or the centroid of nearZip
+    private Double lat;
+    private Double lng;
+    private String nearZip;
+    private Double radiusMiles;
+    private String bbox; // south,west,north,east
 
     // Getters and setters
+    public String getQ() {
+        return q;
+    }
+    public void setQ(String q) {
+        this.q = q;
+    }
+
     public String getZipCode() {
         return zipCode;
     }
@@ -42,4 +58,53 @@ public class PropertyFilterDto {
     public void setSortOrder(String sortOrder) {
         this.sortOrder = sortOrder;
     }
-}
\ No newline at end of file
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public String getNext() {
+        return next;
+    }
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
+    public Double getLng() {
+        return lng;
+    }
+    public void setLng(Double lng) {
+        this.lng = lng;
+    }
+
+    public String getNearZip() {
+        return nearZip;
+    }
+    public void setNearZip(String nearZip) {
+        this.nearZip = nearZip;
+    }
+
+    public Double getRadiusMiles() {
+        return radiusMiles;
+    }
+    public void setRadiusMiles(Double radiusMiles) {
+        this.radiusMiles = radiusMiles;
+    }
+
+    public String getBbox() {
+        return bbox;
+    }
+    public void setBbox(String bbox) {
+        this.bbox = bbox;
+    }
+}
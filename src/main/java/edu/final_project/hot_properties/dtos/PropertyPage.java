@@ -0,0 +1,11 @@
+package edu.final_project.hot_properties.dtos;
+
+import java.util.List;
+
+// one page of browse results; nextCursor is null on the last page
+public record PropertyPage(List<PropertyCard> properties, String nextCursor, PropertyFacets facets) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -5,7 +5,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "favorites")
+@Table(name = "favorites", indexes = {
+        @Index(name = "idx_favorites_user_property", columnList = "user_id, property_id"),
+        @Index(name = "idx_favorites_property", columnList = "property_id")
+})
 public class Favorite {
 
     @Id
@@ -6,7 +6,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_property", columnList = "property_id"),
+        @Index(name = "idx_messages_sender", columnList = "sender_id")
+})
 public class Message {
 
     @Id
@@ -2,12 +2,26 @@ package edu.final_project.hot_properties.entities;
 
 import edu.final_project.hot_properties.exceptions.InvalidPropertyParameterException;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @Entity
-@Table(name = "properties")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "properties")
+@Table(name = "properties", indexes = {
+        @Index(name = "idx_properties_zip_price", columnList = "zip_code, price, id"),
+        @Index(name = "idx_properties_price", columnList = "price, id"),
+        @Index(name = "idx_properties_size", columnList = "size"),
+        @Index(name = "idx_properties_agent", columnList = "agent_id"),
+        @Index(name = "idx_properties_location", columnList = "location"),
+        @Index(name = "idx_properties_favorites_count", columnList = "favorites_count, id")
+})
 public class Property {
 
     @Id
@@ -17,7 +31,7 @@ public class Property {
     @Column(name = "title", unique = true)
     private String title;
 
-    @Column(name = "price")
+    @Column(name = "price", nullable = false)
     private Double price;
 
     @Column(name = "description", columnDefinition = "TEXT")
@@ -32,8 +46,32 @@ public class Property {
     @Column(name = "size")
     private Integer size; // Property size in sq feet
 
-//    @Column(nullable = false)
-//    private Integer favoritesCount;
+    // zip code centroid, null when the zip is not in the bundled dataset
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    // bumped by every change to the listing or its images
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // optimistic lock; every change goes through touch(), so image edits bump it as well
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    // kept in step with the favorites table by atomic UPDATEs (see PropertyRepository),
+    // never written from the entity so a stale copy cannot overwrite it
+    @Column(name = "favorites_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int favoritesCount;
+
+    // the image shown on cards, picked by the agent or else the first one (see refreshCover);
+    // a plain id so listing queries can join the one row without loading the collection
+    @Column(name = "cover_image_id")
+    private Long coverImageId;
 
     // Many-to-one: the Agent who listed the property
     @ManyToOne(fetch = FetchType.LAZY)
@@ -42,6 +80,7 @@ public class Property {
 
     // One-to-many: images of the property
     @OneToMany(mappedBy = "property", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "property-image-lists")
     private final List<PropertyImage> images;
 
     // Many-to-many: users who have favorited this property
@@ -72,10 +111,8 @@ public class Property {
         this.images = new ArrayList<>();
     }
 
-    // used @Transient to avoid mapping to a database column.
-    @Transient
     public int getFavoritesCount() {
-        return this.favorites != null ? this.favorites.size() : 0;
+        return favoritesCount;
     }
 
     /// Setters
@@ -143,6 +180,22 @@ public class Property {
         this.size = size;
     }
 
+    @PrePersist
+    public void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void setCoordinates(Double latitude, Double longitude) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new InvalidPropertyParameterException("Latitude and longitude must be set together");
+        }
+        if (latitude != null && (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180)) {
+            throw new InvalidPropertyParameterException("Coordinates are out of range");
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
     public void setImages(List<PropertyImage> images) {
         if (images == null) {
             throw new InvalidPropertyParameterException("Images set cannot be null");
@@ -179,6 +232,26 @@ public class Property {
         image.setProperty(null);  // Remove the reference to the property in the image
     }
 
+    // makes the given image the cover, ignored unless it is one of this listing's images
+    public void setCoverImage(Long imageId) {
+        if (imageId != null && images.stream().anyMatch(image -> imageId.equals(image.getId()))) {
+            this.coverImageId = imageId;
+        }
+    }
+
+    // keeps the cover pointing at one of the saved images: the first one when there is no cover
+    // yet or the cover was removed, none when no images are left
+    public void refreshCover() {
+        if (coverImageId != null && images.stream().anyMatch(image -> coverImageId.equals(image.getId()))) {
+            return;
+        }
+        coverImageId = images.stream()
+                .map(PropertyImage::getId)
+                .filter(Objects::nonNull)
+                .min(Long::compare)
+                .orElse(null);
+    }
+
     public void addFavorite(Favorite favorite) {
         favorites.add(favorite);
         favorite.setProperty(this);  // Set the property reference in the favorite
@@ -231,6 +304,26 @@ public class Property {
         return size;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Long getCoverImageId() {
+        return coverImageId;
+    }
+
     public User getAgent() {
         return agent;
     }
@@ -3,9 +3,16 @@ package edu.final_project.hot_properties.entities;
 
 import edu.final_project.hot_properties.exceptions.InvalidPropertyImageParameterException;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "property_images")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "property-images")
+@Table(name = "property_images", indexes = {
+        @Index(name = "idx_property_images_property", columnList = "property_id, id"),
+        @Index(name = "idx_property_images_content_hash", columnList = "content_hash")
+})
 public class PropertyImage {
 
     @Id
@@ -15,6 +22,20 @@ public class PropertyImage {
     @Column(name = "image_filename")
     private String imageFilename;
 
+    // sha-256 of the file, rows with the same hash share one blob (see ImageStore)
+    @Column(name = "content_hash", length = 64, columnDefinition = "char(64)")
+    private String contentHash;
+
+    // resized copies next to the original, null until the background pipeline has written them
+    @Column(name = "thumbnail_filename")
+    private String thumbnailFilename;
+
+    @Column(name = "card_filename")
+    private String cardFilename;
+
+    @Column(name = "gallery_filename")
+    private String galleryFilename;
+
     // Many-to-one: associated property
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "property_id")
@@ -29,6 +50,11 @@ public class PropertyImage {
         setProperty(property);
     }
 
+    public PropertyImage(String imageFilename, String contentHash, Property property) {
+        this(imageFilename, property);
+        this.contentHash = contentHash;
+    }
+
 
     /// Setters
     public void setProperty(Property property) {
@@ -41,6 +67,15 @@ public class PropertyImage {
         this.imageFilename = imageFilename;
     }
 
+    // moves a row from its own file to a shared blob, the old variants went with the old file
+    public void setStoredFile(String imageFilename, String contentHash) {
+        setImageFilename(imageFilename);
+        this.contentHash = contentHash;
+        this.thumbnailFilename = null;
+        this.cardFilename = null;
+        this.galleryFilename = null;
+    }
+
     //utility setters
     public void setPropertyForImage(Property property) {
         setProperty(property);
@@ -60,5 +95,34 @@ public class PropertyImage {
         return property;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getThumbnailFilename() {
+        return thumbnailFilename;
+    }
+
+    public String getCardFilename() {
+        return cardFilename;
+    }
+
+    public String getGalleryFilename() {
+        return galleryFilename;
+    }
+
+    // what the templates link to: the variant once it exists, the original until then
+    public String getThumbnailOrOriginal() {
+        return thumbnailFilename != null ? thumbnailFilename : imageFilename;
+    }
+
+    public String getCardOrOriginal() {
+        return cardFilename != null ? cardFilename : imageFilename;
+    }
+
+    public String getGalleryOrOriginal() {
+        return galleryFilename != null ? galleryFilename : imageFilename;
+    }
+
 
 }
\ No newline at end of file
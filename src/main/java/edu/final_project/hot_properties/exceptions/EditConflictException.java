@@ -0,0 +1,8 @@
+package edu.final_project.hot_properties.exceptions;
+
+// the record was changed by someone else since the edit form was loaded
+public class EditConflictException extends RuntimeException {
+    public EditConflictException(String message) {
+        super(message);
+    }
+}
@@ -9,29 +9,45 @@ import edu.final_project.hot_properties.repositories.PropertyImageRepository;
 import edu.final_project.hot_properties.repositories.PropertyRepository;
 import edu.final_project.hot_properties.repositories.RoleRepository;
 import edu.final_project.hot_properties.repositories.UserRepository;
-import jakarta.annotation.PostConstruct;
+import edu.final_project.hot_properties.services.geo.GeoPoint;
+import edu.final_project.hot_properties.services.geo.ZipCentroids;
+import edu.final_project.hot_properties.services.images.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/// Seeds the demo listing into an empty database and moves images from before the blob store
+/// into it, run by {@link StartupDataLoader} after {@link UsersDataInitializer}. Image files are
+/// stored first; each step then writes its rows in a single transaction. Column backfills are
+/// Flyway migrations and run once, not on every start.
 @Component
-@DependsOn("usersDataInitializer")
 public class PropertyInitializer {
 
+    private static final Logger logger = LoggerFactory.getLogger(PropertyInitializer.class);
+
     private final PropertyRepository propertyRepository;
     private final PropertyImageRepository propertyImageRepository;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final ZipCentroids zipCentroids;
+    private final ImageStore imageStore;
+    private final TransactionTemplate transactionTemplate;
 
     private static final String UPLOADS_ROOT = "uploads";
 
@@ -39,14 +55,19 @@ public class PropertyInitializer {
     public PropertyInitializer(PropertyRepository propertyRepository,
             PropertyImageRepository propertyImageRepository,
             UserRepository userRepository,
-            RoleRepository roleRepository) {
+            RoleRepository roleRepository,
+            ZipCentroids zipCentroids,
+            ImageStore imageStore,
+            PlatformTransactionManager transactionManager) {
         this.propertyRepository = propertyRepository;
         this.propertyImageRepository = propertyImageRepository;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
+        this.zipCentroids = zipCentroids;
+        this.imageStore = imageStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @PostConstruct
     public void init() {
 
         if (propertyRepository.count() == 0) {
@@ -75,26 +96,69 @@ public class PropertyInitializer {
                     "60618",
                     3600);
             p1.setAgent(defaultAgent);
-            propertyRepository.save(p1);
-            addImagesFromFolder(p1, p1.getId().toString());
+            locate(p1);
+            // the seed photos sit in a folder named after the listing id the first seed got
+            List<ImageStore.StoredImage> images = storeImagesFromFolder("1");
+            transactionTemplate.executeWithoutResult(status -> {
+                propertyRepository.save(p1);
+                for (ImageStore.StoredImage stored : images) {
+                    PropertyImage image = new PropertyImage(stored.filename(), stored.contentHash(), p1);
+                    p1.addImage(image);
+                    propertyImageRepository.save(image);
+                }
+                p1.refreshCover();
+            });
 
         } else {
             System.out.println("Properties data already exists, skipping initialization.");
         }
+
+        // move images stored per listing folder into the blob store
+        List<PropertyImage> moved = new ArrayList<>();
+        for (PropertyImage image : propertyImageRepository.findAllByContentHashIsNull()) {
+            Path legacy = Paths.get(UPLOADS_ROOT, String.valueOf(image.getProperty().getId()), image.getImageFilename());
+            if (!Files.isRegularFile(legacy)) {
+                logger.warn("Image file not found, leaving it as is: {}", legacy);
+                continue;
+            }
+            try {
+                ImageStore.StoredImage stored = imageStore.adopt(legacy);
+                image.setStoredFile(stored.filename(), stored.contentHash());
+                moved.add(image);
+            } catch (IOException e) {
+                logger.warn("Failed to move image into the blob store: {}", legacy, e);
+            }
+        }
+        if (!moved.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> propertyImageRepository.saveAll(moved));
+        }
+    }
+
+    private void locate(Property property) {
+        GeoPoint point = zipCentroids.find(property.getZipCode());
+        if (point != null) {
+            property.setCoordinates(point.latitude(), point.longitude());
+        }
     }
 
-    private void addImagesFromFolder(Property property, String folderName) {
+    private List<ImageStore.StoredImage> storeImagesFromFolder(String folderName) {
+        List<ImageStore.StoredImage> images = new ArrayList<>();
         File dir = new File(UPLOADS_ROOT, folderName);
         if (dir.exists() && dir.isDirectory()) {
             File[] files = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".webp"));
             if (files != null) {
                 for (File file : files) {
-                    propertyImageRepository.save(new PropertyImage(file.getName(), property));
+                    try {
+                        images.add(imageStore.adopt(file.toPath()));
+                    } catch (IOException e) {
+                        logger.warn("Failed to store seed image: {}", file, e);
+                    }
                 }
             }
         } else {
             System.err.println("Image folder not found for property: " + folderName);
         }
+        return images;
     }
 
 }
\ No newline at end of file
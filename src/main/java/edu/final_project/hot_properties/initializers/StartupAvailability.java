@@ -0,0 +1,32 @@
+package edu.final_project.hot_properties.initializers;
+
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.AvailabilityState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.stereotype.Component;
+
+/// Application availability as Boot tracks it, except that readiness stays at
+/// {@link ReadinessState#REFUSING_TRAFFIC} until {@link StartupDataLoader} has finished. Boot
+/// declares the application ready as soon as startup returns, which is now before the seed data
+/// and the search indexes are in. Replaces Boot's own bean, which backs off when one exists.
+@Component
+public class StartupAvailability extends ApplicationAvailabilityBean {
+
+    private volatile boolean dataReady = false;
+
+    void dataReady() {
+        dataReady = true;
+    }
+
+    public boolean isDataReady() {
+        return dataReady;
+    }
+
+    @Override
+    public <S extends AvailabilityState> S getState(Class<S> stateType, S defaultState) {
+        if (stateType == ReadinessState.class && !dataReady) {
+            return stateType.cast(ReadinessState.REFUSING_TRAFFIC);
+        }
+        return super.getState(stateType, defaultState);
+    }
+}
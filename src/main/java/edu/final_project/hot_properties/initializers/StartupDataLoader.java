@@ -0,0 +1,123 @@
+package edu.final_project.hot_properties.initializers;
+
+import edu.final_project.hot_properties.services.search.ListingIndex;
+import edu.final_project.hot_properties.services.search.PropertyTextIndex;
+import edu.final_project.hot_properties.services.search.SuggestIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/// The startup data phase: seed data and backfills, then the in-memory search indexes.
+///
+/// It runs on its own thread once the context has started, so the web server comes up without
+/// waiting for BCrypt, directory listings and full table scans. Until it is done readiness is
+/// held at {@link ReadinessState#REFUSING_TRAFFIC} (see {@link StartupAvailability}) and
+/// requests are answered with 503 by the startup readiness filter. Every step is idempotent,
+/// so it runs on every node and every restart.
+@Component
+public class StartupDataLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupDataLoader.class);
+
+    // an in-flight seed transaction is allowed to finish before the connection pool closes
+    private static final Duration SHUTDOWN_WAIT = Duration.ofSeconds(30);
+
+    private final UsersDataInitializer usersDataInitializer;
+    private final PropertyInitializer propertyInitializer;
+    private final ListingIndex listingIndex;
+    private final PropertyTextIndex propertyTextIndex;
+    private final SuggestIndex suggestIndex;
+    private final StartupAvailability availability;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile long durationMs = -1;
+    private volatile String failure;
+
+    public StartupDataLoader(UsersDataInitializer usersDataInitializer, PropertyInitializer propertyInitializer,
+                             ListingIndex listingIndex, PropertyTextIndex propertyTextIndex,
+                             SuggestIndex suggestIndex, StartupAvailability availability,
+                             ApplicationEventPublisher eventPublisher) {
+        this.usersDataInitializer = usersDataInitializer;
+        this.propertyInitializer = propertyInitializer;
+        this.listingIndex = listingIndex;
+        this.propertyTextIndex = propertyTextIndex;
+        this.suggestIndex = suggestIndex;
+        this.availability = availability;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "startup-data");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        long started = System.nanoTime();
+        try {
+            step(usersDataInitializer::init);
+            step(propertyInitializer::init);
+            // each falls back to the database queries if its build fails
+            listingIndex.buildOnStartup();
+            propertyTextIndex.buildOnStartup();
+            suggestIndex.buildOnStartup();
+
+            durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            availability.dataReady();
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+            logger.info("Startup data ready in {} ms.", durationMs);
+        } catch (RuntimeException e) {
+            // the node stays unready rather than serving a half seeded database
+            failure = e.getMessage();
+            logger.error("Startup data phase failed, refusing traffic: {}", e.getMessage(), e);
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    // two nodes seeding an empty database at once: the loser hits a unique key, rolls back and
+    // finds the winner's rows on the second try
+    private void step(Runnable step) {
+        try {
+            step.run();
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Startup data written concurrently, retrying: {}", e.getMessage());
+            step.run();
+        }
+    }
+
+    /// Blocks until the phase has finished; true if it succeeded within the timeout.
+    public boolean awaitReady(Duration timeout) throws InterruptedException {
+        return finished.await(timeout.toMillis(), TimeUnit.MILLISECONDS) && availability.isDataReady();
+    }
+
+    @PreDestroy
+    public void awaitOnShutdown() throws InterruptedException {
+        finished.await(SHUTDOWN_WAIT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", availability.isDataReady());
+        stats.put("durationMs", durationMs);
+        if (failure != null) {
+            stats.put("failure", failure);
+        }
+        return stats;
+    }
+}
@@ -5,88 +5,78 @@ import edu.final_project.hot_properties.entities.RoleEnum;
 import edu.final_project.hot_properties.entities.User;
 import edu.final_project.hot_properties.repositories.RoleRepository;
 import edu.final_project.hot_properties.repositories.UserRepository;
-import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/// Seeds the roles and the demo accounts, run by {@link StartupDataLoader}. Roles are added by
+/// name when missing; the accounts only go into an empty users table. Everything is written in
+/// one transaction, so a second node starting against the same database either sees the data
+/// or fails on the unique keys and is retried by the loader.
 @Component
 public class UsersDataInitializer {
 
+    private static final String SEED_PASSWORD = "12345";
+
+    private record SeedUser(String firstName, String lastName, String email, RoleEnum role) {
+    }
+
+    private static final List<SeedUser> SEED_USERS = List.of(
+            new SeedUser("john", "buyer", "buyer1@mail.com", RoleEnum.BUYER),
+            new SeedUser("bob", "buyer", "buyer2@mail.com", RoleEnum.BUYER),
+            new SeedUser("john", "agent", "agent1@mail.com", RoleEnum.AGENT),
+            new SeedUser("bob", "agent", "agent2@mail.com", RoleEnum.AGENT),
+            new SeedUser("john", "admin", "admin1@mail.com", RoleEnum.ADMIN),
+            new SeedUser("bob", "admin", "admin2@mail.com", RoleEnum.ADMIN));
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public UsersDataInitializer(UserRepository userRepository, RoleRepository roleRepository,
-                                PasswordEncoder passwordEncoder) {
+                                PasswordEncoder passwordEncoder, PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @PostConstruct
     public void init() {
-        if (userRepository.count() == 0 && roleRepository.count() == 0) {
-            Role roleBuyer = new Role(RoleEnum.BUYER.name());
-            Role roleAgent = new Role(RoleEnum.AGENT.name());
-            Role roleAdmin = new Role(RoleEnum.ADMIN.name());
-
-//            Role roleBuyer = new Role("ROLE_BUYER");
-//            Role roleAgent = new Role("ROLE_AGENT");
-//            Role roleAdmin = new Role("ROLE_ADMIN");
-
-            roleRepository.save(roleBuyer);
-            roleRepository.save(roleAgent);
-            roleRepository.save(roleAdmin);
-
-            User buyer1 = new User("john",
-                    "buyer",
-                    "buyer1@mail.com",
-                    passwordEncoder.encode("12345"),
-                    roleBuyer);
-
-            User buyer2 = new User("bob",
-                    "buyer",
-                    "buyer2@mail.com",
-                    passwordEncoder.encode("12345"),
-                    roleBuyer);
-
-            User agent1 = new User("john",
-                    "agent",
-                    "agent1@mail.com",
-                    passwordEncoder.encode("12345"),
-                    roleAgent);
-
-            User agent2 = new User("bob",
-                    "agent",
-                    "agent2@mail.com",
-                    passwordEncoder.encode("12345"),
-                    roleAgent);
-
-            User admin1 = new User("john",
-                    "admin",
-                    "admin1@mail.com",
-                    passwordEncoder.encode("12345"),
-                    roleAdmin);
-
-            User admin2 = new User("bob",
-                    "admin",
-                    "admin2@mail.com",
-                    passwordEncoder.encode("12345"),
-                    roleAdmin);
-
-            userRepository.save(buyer1);
-            userRepository.save(buyer2);
-            userRepository.save(agent1);
-            userRepository.save(agent2);
-            userRepository.save(admin1);
-            userRepository.save(admin2);
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<RoleEnum, Role> roles = new EnumMap<>(RoleEnum.class);
+            List<Role> missingRoles = new ArrayList<>();
+            for (RoleEnum name : RoleEnum.values()) {
+                Role role = roleRepository.findByName(name.name()).orElse(null);
+                if (role == null) {
+                    role = new Role(name.name());
+                    missingRoles.add(role);
+                }
+                roles.put(name, role);
+            }
+            roleRepository.saveAll(missingRoles);
+
+            if (userRepository.count() > 0) {
+                System.out.println("Users already exist, skipping initialization.");
+                return;
+            }
+            // BCrypt is slow by design, the hashes are computed side by side
+            List<User> users = SEED_USERS.parallelStream()
+                    .map(seed -> new User(seed.firstName(), seed.lastName(), seed.email(),
+                            passwordEncoder.encode(SEED_PASSWORD), roles.get(seed.role())))
+                    .toList();
+            // user ids are IDENTITY, so this is still one insert per user; fine for six rows
+            userRepository.saveAll(users);
 
             System.out.println("Initial users and roles inserted.");
-        } else {
-
-            System.out.println("Users and roles already exist, skipping initialization.");
-        }
+        });
     }
 }
@@ -15,6 +15,9 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
 
     List<Favorite> findByBuyer(User buyer);
 
-    @Query("SELECT f.property FROM Favorite f WHERE f.buyer.id = :userId")
-    List<Property> findFavoritedPropertiesByUserId(@Param("userId") Long userId);
+    boolean existsByBuyerEmailAndPropertyId(String email, Long propertyId);
+
+    // a buyer's favorited ids, loaded into FavoriteIdCache
+    @Query("SELECT f.property.id FROM Favorite f WHERE f.buyer.email = :email")
+    List<Long> findPropertyIdsByBuyerEmail(@Param("email") String email);
 }
@@ -0,0 +1,9 @@
+package edu.final_project.hot_properties.repositories;
+
+// favorites counter, changed in place so concurrent favorites never lose an update
+public interface FavoritesCounter {
+
+    int incrementFavoritesCount(Long id);
+
+    int decrementFavoritesCount(Long id);
+}
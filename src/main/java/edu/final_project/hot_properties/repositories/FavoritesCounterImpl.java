@@ -0,0 +1,45 @@
+package edu.final_project.hot_properties.repositories;
+
+import edu.final_project.hot_properties.entities.Property;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.NativeQuery;
+
+/// The counter is bumped with native SQL instead of a bulk JPQL update: Hibernate cannot tell
+/// which rows a bulk update touches, so it would drop the whole `properties` cache region
+/// on every click. Declaring an empty query space keeps the region, and only the changed
+/// listing is evicted, again once the transaction has completed so a concurrent read cannot
+/// put the old count back. No cached query reads the properties table.
+class FavoritesCounterImpl implements FavoritesCounter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int incrementFavoritesCount(Long id) {
+        return update("UPDATE properties SET favorites_count = favorites_count + 1 WHERE id = :id", id);
+    }
+
+    @Override
+    public int decrementFavoritesCount(Long id) {
+        return update("UPDATE properties SET favorites_count = " +
+                "CASE WHEN favorites_count > 0 THEN favorites_count - 1 ELSE 0 END WHERE id = :id", id);
+    }
+
+    private int update(String sql, Long id) {
+        int updated = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("")
+                .setParameter("id", id)
+                .executeUpdate();
+        evict(id);
+        entityManager.unwrap(SessionImplementor.class).getActionQueue()
+                .registerProcess((success, session) -> evict(id));
+        return updated;
+    }
+
+    private void evict(Long id) {
+        entityManager.getEntityManagerFactory().getCache().evict(Property.class, id);
+    }
+}
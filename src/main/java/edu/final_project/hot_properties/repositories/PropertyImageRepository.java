@@ -1,10 +1,55 @@
 package edu.final_project.hot_properties.repositories;
 
 import edu.final_project.hot_properties.entities.PropertyImage;
+import edu.final_project.hot_properties.services.images.PendingImage;
+import edu.final_project.hot_properties.services.images.StoredImageFiles;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface PropertyImageRepository extends JpaRepository<PropertyImage, Long> {
 
+    // --- resized variants, see ImageVariantGenerator
+    String PENDING_SELECT = "SELECT new edu.final_project.hot_properties.services.images.PendingImage(" +
+            "i.id, i.property.id, i.imageFilename, i.contentHash) FROM PropertyImage i " +
+            "WHERE i.cardFilename IS NULL AND i.contentHash IS NOT NULL ";
+
+    @Query(PENDING_SELECT + "AND i.property.id = :propertyId")
+    List<PendingImage> findPendingVariantsByPropertyId(@Param("propertyId") Long propertyId);
+
+    @Query(PENDING_SELECT + "ORDER BY i.id")
+    List<PendingImage> findPendingVariants(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PropertyImage i SET i.thumbnailFilename = :thumbnail, i.cardFilename = :card, " +
+            "i.galleryFilename = :gallery WHERE i.id = :id")
+    int updateVariants(@Param("id") Long id, @Param("thumbnail") String thumbnail, @Param("card") String card,
+                       @Param("gallery") String gallery);
+
+    // --- blob references, see ImageStore
+    long countByContentHash(String contentHash);
+
+    // a file in a listing folder, from before the blob store
+    boolean existsByPropertyIdAndImageFilename(Long propertyId, String imageFilename);
+
+    // --- reconciliation, see ImageFileJanitor
+    @Query("SELECT DISTINCT i.contentHash FROM PropertyImage i WHERE i.contentHash IN :hashes")
+    List<String> findReferencedHashes(@Param("hashes") Collection<String> hashes);
+
+    @Query("SELECT new edu.final_project.hot_properties.services.images.StoredImageFiles(" +
+            "i.id, i.imageFilename, i.thumbnailFilename, i.cardFilename, i.galleryFilename) FROM PropertyImage i " +
+            "WHERE i.contentHash IS NOT NULL AND i.id > :afterId ORDER BY i.id")
+    List<StoredImageFiles> findStoredImagesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // rows still pointing at a file in a listing folder, from before the blob store
+    List<PropertyImage> findAllByContentHashIsNull();
 }
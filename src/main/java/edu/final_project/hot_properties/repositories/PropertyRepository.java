@@ -1,39 +1,119 @@
 package edu.final_project.hot_properties.repositories;
 
+import edu.final_project.hot_properties.dtos.PropertyCard;
 import edu.final_project.hot_properties.entities.Property;
-import org.springframework.data.domain.Sort;
+import edu.final_project.hot_properties.services.search.ListingRow;
+import edu.final_project.hot_properties.services.search.ListingText;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface PropertyRepository extends JpaRepository<Property, Long> {
+public interface PropertyRepository extends JpaRepository<Property, Long>, FavoritesCounter {
 
     // --- individual method filters
     // finding by Id
     Property findPropertyById(Long id);
 
-    // --- combined filter
-    @Query("SELECT p FROM Property p LEFT JOIN FETCH p.favorites f WHERE " +
-            "(:zipCode IS NULL OR p.zipCode = :zipCode) AND " +
+    // validator for the details page, without loading the entity
+    @Query("SELECT p.version FROM Property p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // --- browse cards: flat projection, cover image = card variant of the listing's cover image
+    String CARD_SELECT = "SELECT new edu.final_project.hot_properties.dtos.PropertyCard(" +
+            "p.id, p.title, p.price, p.location, p.size, p.zipCode, " +
+            "COALESCE(c.cardFilename, c.imageFilename), p.favoritesCount) " +
+            "FROM Property p LEFT JOIN PropertyImage c ON c.id = p.coverImageId ";
+
+    @Query(CARD_SELECT + "WHERE p.id IN :ids")
+    List<PropertyCard> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // a buyer's favorites page, newest listings first
+    @Query(CARD_SELECT + "WHERE p.id IN (SELECT f.property.id FROM Favorite f WHERE f.buyer.id = :userId) " +
+            "ORDER BY p.id DESC")
+    List<PropertyCard> findFavoriteCardsByUserId(@Param("userId") Long userId);
+
+    // --- combined filter, keyset paginated
+    String BROWSE_FILTERS = "(:zipCode IS NULL OR p.zipCode = :zipCode) AND " +
             "(:minSqft IS NULL OR p.size >= :minSqft) AND " +
             "(:minPrice IS NULL OR (p.price IS NOT NULL AND p.price >= :minPrice)) AND " +
-            "(:maxPrice IS NULL OR (p.price IS NOT NULL AND p.price <= :maxPrice)) "
-    )
-    List<Property> findAllPropertiesWithFilters(
+            "(:maxPrice IS NULL OR (p.price IS NOT NULL AND p.price <= :maxPrice)) ";
+
+    @Query(CARD_SELECT + "WHERE " + BROWSE_FILTERS +
+            "AND (:afterPrice IS NULL OR p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "ORDER BY p.price ASC, p.id ASC")
+    List<PropertyCard> findPageByPriceAsc(
             @Param("zipCode") String zipCode,
             @Param("minSqft") Integer minSqft,
             @Param("minPrice") Double minPrice,
             @Param("maxPrice") Double maxPrice,
-            Sort sort
+            @Param("afterPrice") Double afterPrice,
+            @Param("afterId") Long afterId,
+            Pageable pageable
     );
 
+    @Query(CARD_SELECT + "WHERE " + BROWSE_FILTERS +
+            "AND (:afterPrice IS NULL OR p.price < :afterPrice OR (p.price = :afterPrice AND p.id < :afterId)) " +
+            "ORDER BY p.price DESC, p.id DESC")
+    List<PropertyCard> findPageByPriceDesc(
+            @Param("zipCode") String zipCode,
+            @Param("minSqft") Integer minSqft,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("afterPrice") Double afterPrice,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    @Query(CARD_SELECT + "WHERE " + BROWSE_FILTERS +
+            "AND (:afterId IS NULL OR p.id < :afterId) " +
+            "ORDER BY p.id DESC")
+    List<PropertyCard> findPageByIdDesc(
+            @Param("zipCode") String zipCode,
+            @Param("minSqft") Integer minSqft,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    @Query(CARD_SELECT + "WHERE " + BROWSE_FILTERS +
+            "AND (:afterCount IS NULL OR p.favoritesCount < :afterCount " +
+            "OR (p.favoritesCount = :afterCount AND p.id < :afterId)) " +
+            "ORDER BY p.favoritesCount DESC, p.id DESC")
+    List<PropertyCard> findPageByPopularity(
+            @Param("zipCode") String zipCode,
+            @Param("minSqft") Integer minSqft,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("afterCount") Integer afterCount,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    // lightweight rows for the in-memory listing index
+    @Query("SELECT new edu.final_project.hot_properties.services.search.ListingRow(p.id, p.price, p.size, p.zipCode, " +
+            "p.latitude, p.longitude, p.favoritesCount, p.version) " +
+            "FROM Property p")
+    List<ListingRow> findAllListingRows();
+
+    // searchable text for the full-text index
+    @Query("SELECT new edu.final_project.hot_properties.services.search.ListingText(p.id, p.title, p.description, p.location) " +
+            "FROM Property p")
+    List<ListingText> findAllListingTexts();
+
     Property findByLocation(String location);
 
-    List<Property> findAllByAgentId(Long agentId);
+    // spelled out: the derived query joins users and filters on users.id, which keeps the
+    // planner off idx_properties_agent
+    @Query("SELECT p FROM Property p WHERE p.agent.id = :agentId")
+    List<Property> findAllByAgentId(@Param("agentId") Long agentId);
 
 
     List<Property> findByTitle(String title);
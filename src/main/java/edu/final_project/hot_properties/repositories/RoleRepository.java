@@ -1,11 +1,15 @@
 package edu.final_project.hot_properties.repositories;
 
 import edu.final_project.hot_properties.entities.Role;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    // runs on every registration, served from the query cache
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Role> findByName(String name);
 
 }
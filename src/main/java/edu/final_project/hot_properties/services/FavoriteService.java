@@ -1,7 +1,7 @@
 package edu.final_project.hot_properties.services;
 
+import edu.final_project.hot_properties.dtos.PropertyCard;
 import edu.final_project.hot_properties.entities.Favorite;
-import edu.final_project.hot_properties.entities.Property;
 import java.util.List;
 
 public interface FavoriteService {
@@ -12,5 +12,5 @@ public interface FavoriteService {
 
     boolean isPropertyFavoritedByUser(Long propertyId);
 
-    List<Property> getMyFavorites();
+    List<PropertyCard> getMyFavorites();
 }
@@ -1,5 +1,6 @@
 package edu.final_project.hot_properties.services;
 
+import edu.final_project.hot_properties.dtos.PropertyCard;
 import edu.final_project.hot_properties.entities.Favorite;
 import edu.final_project.hot_properties.entities.Property;
 import edu.final_project.hot_properties.entities.RoleEnum;
@@ -9,11 +10,17 @@ import edu.final_project.hot_properties.exceptions.InvalidPropertyParameterExcep
 import edu.final_project.hot_properties.repositories.FavoriteRepository;
 import edu.final_project.hot_properties.repositories.PropertyRepository;
 import edu.final_project.hot_properties.repositories.UserRepository;
+import edu.final_project.hot_properties.services.favorites.FavoriteChangedEvent;
+import edu.final_project.hot_properties.services.favorites.FavoriteIdCache;
+import edu.final_project.hot_properties.services.search.FavoriteCountChangedEvent;
+import edu.final_project.hot_properties.services.search.ListingIndex;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
@@ -25,14 +32,22 @@ public class FavoriteServiceImpl implements FavoriteService {
     private final UserRepository userRepository;
     private final PropertyRepository propertyRepository;
     private final FavoriteRepository favoriteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FavoriteIdCache favoriteIdCache;
+    private final ListingIndex listingIndex;
 
     private static final Logger logger = LoggerFactory.getLogger(FavoriteServiceImpl.class);
 
     @Autowired
-    public FavoriteServiceImpl(UserRepository userRepository, PropertyRepository propertyRepository, FavoriteRepository favoriteRepository) {
+    public FavoriteServiceImpl(UserRepository userRepository, PropertyRepository propertyRepository,
+                               FavoriteRepository favoriteRepository, ApplicationEventPublisher eventPublisher,
+                               FavoriteIdCache favoriteIdCache, ListingIndex listingIndex) {
         this.userRepository = userRepository;
         this.propertyRepository = propertyRepository;
         this.favoriteRepository = favoriteRepository;
+        this.eventPublisher = eventPublisher;
+        this.favoriteIdCache = favoriteIdCache;
+        this.listingIndex = listingIndex;
     }
 
     private User getCurrentAuthenticatedUser() {
@@ -75,6 +90,9 @@ public class FavoriteServiceImpl implements FavoriteService {
         favorite.setCreatedAt();
         
         Favorite savedFavorite = favoriteRepository.save(favorite);
+        propertyRepository.incrementFavoritesCount(propertyId);
+        eventPublisher.publishEvent(new FavoriteCountChangedEvent(propertyId, 1));
+        eventPublisher.publishEvent(new FavoriteChangedEvent(user.getEmail(), propertyId, true));
         logger.info("Property {} added to favorites by user {}.",propertyId, user.getEmail());
         return savedFavorite;
     }
@@ -97,6 +115,9 @@ public class FavoriteServiceImpl implements FavoriteService {
         if (favorite != null) {
             currentUser.removeFavorite(favorite);
             userRepository.save(currentUser);
+            propertyRepository.decrementFavoritesCount(propertyId);
+            eventPublisher.publishEvent(new FavoriteCountChangedEvent(propertyId, -1));
+            eventPublisher.publishEvent(new FavoriteChangedEvent(currentUser.getEmail(), propertyId, false));
             logger.info("Property {} removed from favorites by user {}.", propertyId, currentUser.getEmail());
             return true;
         } else {
@@ -108,11 +129,12 @@ public class FavoriteServiceImpl implements FavoriteService {
     @PreAuthorize("hasAnyAuthority('BUYER', 'AGENT')")
     @Override
     public boolean isPropertyFavoritedByUser(Long propertyId) {
-        User currentUser = getCurrentAuthenticatedUser();
-        
-        if (!isCurrentUserBuyer(currentUser)) {
-            logger.warn("User {} (role: {}) attempted to check favorite status for property {}, but only BUYERS can check.",
-            currentUser.getEmail(), currentUser.getRole().getName(), propertyId);
+        // answered from the authentication and FavoriteIdCache, no database round trip on a hit
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+
+        if (!isBuyer(auth)) {
+            logger.warn("User {} (authorities: {}) attempted to check favorite status for property {}, but only BUYERS can check.",
+            auth.getName(), auth.getAuthorities(), propertyId);
             throw new InvalidFavoriteParameterException("Only buyers can check favorite status for properties.");
         }
         
@@ -120,15 +142,28 @@ public class FavoriteServiceImpl implements FavoriteService {
             throw new InvalidFavoriteParameterException("Property ID cannot be null.");
         }
         
-        Property property = propertyRepository.findById(propertyId)
-        .orElseThrow(() -> new InvalidFavoriteParameterException("Property with ID " + propertyId + " not found."));
-        
-        return favoriteRepository.findByBuyerAndProperty(currentUser, property) != null;
+        if (favoriteIdCache.isFavorite(auth.getName(), propertyId)) {
+            return true;
+        }
+        if (!propertyExists(propertyId)) {
+            throw new InvalidFavoriteParameterException("Property with ID " + propertyId + " not found.");
+        }
+        return false;
+    }
+
+    private static boolean isBuyer(Authentication auth) {
+        return auth != null && auth.getAuthorities().stream()
+                .anyMatch(authority -> RoleEnum.BUYER.name().equals(authority.getAuthority()));
+    }
+
+    private boolean propertyExists(Long propertyId) {
+        return listingIndex.isReady() ? listingIndex.versionOf(propertyId) != null
+                : propertyRepository.existsById(propertyId);
     }
     
     @PreAuthorize("hasAuthority('BUYER')")
     @Override
-    public List<Property> getMyFavorites() {
+    public List<PropertyCard> getMyFavorites() {
         User currentUser = getCurrentAuthenticatedUser();
 
         if (!isCurrentUserBuyer(currentUser)) {
@@ -137,6 +172,6 @@ public class FavoriteServiceImpl implements FavoriteService {
             throw new InvalidFavoriteParameterException("Only buyers can retrieve their favorite properties.");
         }
         
-        return favoriteRepository.findFavoritedPropertiesByUserId(currentUser.getId());
+        return propertyRepository.findFavoriteCardsByUserId(currentUser.getId());
     }
 }
@@ -0,0 +1,34 @@
+package edu.final_project.hot_properties.services;
+
+import edu.final_project.hot_properties.exceptions.InvalidPropertyParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/// Keyset position for browse pagination: the sort order it belongs to, the sort column
+/// value of the last row on the previous page and that row's id as tie breaker.
+/// Encoded as an opaque url-safe token so clients can't build their own.
+public record PropertyCursor(String sortOrder, Double key, Long id) {
+
+    public String encode() {
+        String raw = sortOrder + "|" + (key != null ? key : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PropertyCursor decode(String token, String expectedSortOrder) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !parts[0].equals(expectedSortOrder)) {
+                throw new InvalidPropertyParameterException("Page token does not match the current filters.");
+            }
+            Double key = parts[1].isEmpty() ? null : Double.valueOf(parts[1]);
+            return new PropertyCursor(parts[0], key, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) { // bad base64 or number
+            throw new InvalidPropertyParameterException("Invalid page token.");
+        }
+    }
+}
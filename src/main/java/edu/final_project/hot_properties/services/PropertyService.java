@@ -1,17 +1,32 @@
 package edu.final_project.hot_properties.services;
 
 import edu.final_project.hot_properties.dtos.AddPropertyDto;
+import edu.final_project.hot_properties.dtos.LocationSuggestion;
+import edu.final_project.hot_properties.dtos.PropertyCard;
 import edu.final_project.hot_properties.dtos.PropertyFilterDto;
+import edu.final_project.hot_properties.dtos.PropertyPage;
 import edu.final_project.hot_properties.entities.Property;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public interface PropertyService {
 
-    // browsing with filters
-    List<Property> getFilteredAndSortedProperties(PropertyFilterDto propertyFilterDto);
+    // browsing with filters, one keyset page at a time
+    PropertyPage getFilteredAndSortedProperties(PropertyFilterDto propertyFilterDto);
+
+    // typeahead completions for the location / zip filters
+    List<LocationSuggestion> suggestLocations(String prefix, Integer limit);
+
+    // "similar homes" cards for the details page
+    List<PropertyCard> getSimilarProperties(Long propertyId);
+
+    // strong validators for conditional GETs; null when the property does not exist
+    String getDetailsETag(Long propertyId);
+
+    String getBrowseETag(String queryString);
 
     // property by id
     Property getPropertyById(Long id);
@@ -36,4 +51,9 @@ public interface PropertyService {
     Boolean exist(Long propertyId);
 
     List<Property> getPropertiesByAgent(Long id);
+
+    // listing views, counted in memory and flushed to property_stats in batches
+    void recordView(Long propertyId);
+
+    Map<Long, Long> getViewCounts(List<Property> properties);
 }
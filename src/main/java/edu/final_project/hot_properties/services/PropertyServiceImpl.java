@@ -1,57 +1,133 @@
 package edu.final_project.hot_properties.services;
 
 import edu.final_project.hot_properties.dtos.AddPropertyDto;
+import edu.final_project.hot_properties.dtos.LocationSuggestion;
+import edu.final_project.hot_properties.dtos.PropertyCard;
+import edu.final_project.hot_properties.dtos.PropertyFacets;
 import edu.final_project.hot_properties.dtos.PropertyFilterDto;
+import edu.final_project.hot_properties.dtos.PropertyPage;
 import edu.final_project.hot_properties.entities.*;
 import edu.final_project.hot_properties.exceptions.AlreadyExistsException;
+import edu.final_project.hot_properties.exceptions.EditConflictException;
 import edu.final_project.hot_properties.exceptions.InvalidPropertyImageParameterException;
 import edu.final_project.hot_properties.exceptions.InvalidPropertyParameterException;
 import edu.final_project.hot_properties.exceptions.NotFoundException;
+import edu.final_project.hot_properties.repositories.FavoriteRepository;
 import edu.final_project.hot_properties.repositories.PropertyImageRepository;
 import edu.final_project.hot_properties.repositories.PropertyRepository;
 import edu.final_project.hot_properties.repositories.UserRepository;
+import edu.final_project.hot_properties.services.geo.GeoArea;
+import edu.final_project.hot_properties.services.geo.GeoPoint;
+import edu.final_project.hot_properties.services.geo.ZipCentroids;
+import edu.final_project.hot_properties.services.images.ImageStore;
+import edu.final_project.hot_properties.services.images.ImageUploadStager;
+import edu.final_project.hot_properties.services.images.ImagesReleasedEvent;
+import edu.final_project.hot_properties.services.images.ImagesUploadedEvent;
+import edu.final_project.hot_properties.services.search.BrowseResultCache;
+import edu.final_project.hot_properties.services.favorites.FavoriteChangedEvent;
+import edu.final_project.hot_properties.services.favorites.FavoriteIdCache;
+import edu.final_project.hot_properties.services.search.FavoriteCountChangedEvent;
+import edu.final_project.hot_properties.services.search.ListingChangedEvent;
+import edu.final_project.hot_properties.services.search.ListingChangeSequence;
+import edu.final_project.hot_properties.services.search.ListingIndex;
+import edu.final_project.hot_properties.services.search.ListingQuery;
+import edu.final_project.hot_properties.services.search.ListingRow;
+import edu.final_project.hot_properties.services.search.PropertyTextIndex;
+import edu.final_project.hot_properties.services.search.SimilarListingsCache;
+import edu.final_project.hot_properties.services.search.SuggestIndex;
+import edu.final_project.hot_properties.services.stats.PropertyViewCounter;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 @Service
 public class PropertyServiceImpl implements PropertyService {
 
     private static final Logger logger = LoggerFactory.getLogger(PropertyServiceImpl.class);
+
+    // browse page size limits
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 60;
+    private static final double MAX_RADIUS_MILES = 100;
+    private static final int SIMILAR_LISTINGS = 4;
+
+    private static final String EDIT_CONFLICT_MESSAGE = "This property was changed by someone else while you " +
+            "were editing it. Review the current details and apply your changes again.";
+
     private final PropertyRepository propertyRepository;
     private final PropertyImageRepository propertyImageRepository;
     private final UserService userService;
     private final UserRepository userRepository;
-    @Value("${property.upload.dir}")
-    private String UPLOAD_DIR;
+    private final FavoriteRepository favoriteRepository;
+    private final ListingIndex listingIndex;
+    private final PropertyTextIndex propertyTextIndex;
+    private final BrowseResultCache browseResultCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ZipCentroids zipCentroids;
+    private final SuggestIndex suggestIndex;
+    private final SimilarListingsCache similarListingsCache;
+    private final ListingChangeSequence listingChangeSequence;
+    private final FavoriteIdCache favoriteIdCache;
+    private final PropertyViewCounter propertyViewCounter;
+    private final ImageUploadStager imageUploadStager;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public PropertyServiceImpl(PropertyRepository propertyRepository, PropertyImageRepository propertyImageRepository,
-                               UserService userService, UserRepository userRepository) {
+                               UserService userService, UserRepository userRepository,
+                               FavoriteRepository favoriteRepository, ListingIndex listingIndex, PropertyTextIndex propertyTextIndex,
+                               BrowseResultCache browseResultCache, ApplicationEventPublisher eventPublisher,
+                               ZipCentroids zipCentroids, SuggestIndex suggestIndex,
+                               SimilarListingsCache similarListingsCache,
+                               ListingChangeSequence listingChangeSequence, FavoriteIdCache favoriteIdCache,
+                               PropertyViewCounter propertyViewCounter, ImageUploadStager imageUploadStager,
+                               PlatformTransactionManager transactionManager) {
         this.propertyRepository = propertyRepository;
         this.propertyImageRepository = propertyImageRepository;
         this.userService = userService;
         this.userRepository = userRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.listingIndex = listingIndex;
+        this.propertyTextIndex = propertyTextIndex;
+        this.browseResultCache = browseResultCache;
+        this.eventPublisher = eventPublisher;
+        this.zipCentroids = zipCentroids;
+        this.suggestIndex = suggestIndex;
+        this.similarListingsCache = similarListingsCache;
+        this.listingChangeSequence = listingChangeSequence;
+        this.favoriteIdCache = favoriteIdCache;
+        this.propertyViewCounter = propertyViewCounter;
+        this.imageUploadStager = imageUploadStager;
+        // create/edit run their transaction after the photos are written, see stageUploads
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
 //    @PreAuthorize("hasAuthority('BUYER')")
     @Override
-    public List<Property> getFilteredAndSortedProperties(PropertyFilterDto propertyFilterDto) {
+    public PropertyPage getFilteredAndSortedProperties(PropertyFilterDto propertyFilterDto) {
 
         String zipCode = propertyFilterDto.getZipCode();
         Double minPrice = propertyFilterDto.getMinPrice();
@@ -85,29 +161,216 @@ public class PropertyServiceImpl implements PropertyService {
             System.err.println("Warning: Negative minSize (" + finalMinSqFt + "). Min size filter ignored.");
             finalMinSqFt = null; // Treat as no min size filter
         }
-        // List<String> allowedSortFields = Arrays.asList("id", "price", "size",
-        // "title", "zipCode");
-
-        Sort sort = Sort.unsorted(); // no sorting default
-
-        if (sortOrder != null) {
-            switch (sortOrder.toLowerCase()) {
-                case "price_asc":
-                    sort = Sort.by(Sort.Direction.ASC, "price");
-                    break;
-                case "price_desc":
-                    sort = Sort.by(Sort.Direction.DESC, "price");
-                    break;
-                default:
-                    sort = Sort.by(Sort.Direction.DESC, "id");
-                    break;
+
+        String text = propertyFilterDto.getQ();
+        // lower-cased with single spaces so equivalent searches share a cache entry
+        String finalText = (text != null && !text.trim().isEmpty())
+                ? text.trim().replaceAll("\\s+", " ").toLowerCase() : null;
+
+        // keyword searches rank by relevance unless a price or popularity order is picked,
+        // anything else is newest first
+        String finalSortOrder = sortOrder != null ? sortOrder.toLowerCase() : "";
+        if (!finalSortOrder.equals(ListingQuery.SORT_PRICE_ASC) && !finalSortOrder.equals(ListingQuery.SORT_PRICE_DESC)
+                && !finalSortOrder.equals(ListingQuery.SORT_POPULAR)) {
+            finalSortOrder = finalText != null ? ListingQuery.SORT_RELEVANCE : ListingQuery.SORT_ID_DESC;
+        }
+
+        ListingQuery query = new ListingQuery(finalText, finalZipCode, finalMinSqFt, finalMinPrice, finalMaxPrice,
+                resolveArea(propertyFilterDto), finalSortOrder);
+        int pageSize = resolvePageSize(propertyFilterDto.getPageSize());
+        PropertyCursor after = PropertyCursor.decode(propertyFilterDto.getNext(), finalSortOrder);
+
+        BrowseResultCache.Key cacheKey = new BrowseResultCache.Key(query,
+                after != null ? after.encode() : null, pageSize);
+        // identical concurrent misses share a single search
+        return browseResultCache.getOrLoad(cacheKey, () -> searchPage(query, after, pageSize));
+    }
+
+    @Override
+    public List<LocationSuggestion> suggestLocations(String prefix, Integer limit) {
+        return suggestIndex.suggest(prefix, limit != null ? limit : 8);
+    }
+
+    @Override
+    public List<PropertyCard> getSimilarProperties(Long propertyId) {
+        if (!listingIndex.isReady()) {
+            return List.of(); // the panel is optional, skip it while the index warms up
+        }
+        List<PropertyCard> cached = similarListingsCache.get(propertyId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = similarListingsCache.generation();
+        List<PropertyCard> cards = loadInOrder(listingIndex.similarTo(propertyId, SIMILAR_LISTINGS));
+        similarListingsCache.put(propertyId, cards, generation);
+        return cards;
+    }
+
+    // the details page shows the listing, the viewer's favorite button and the similar homes
+    // panel, so all three go into the validator; the viewer also covers the header
+    @Override
+    public String getDetailsETag(Long propertyId) {
+        Long version = propertyRepository.findVersionById(propertyId).orElse(null);
+        if (version == null) {
+            return null;
+        }
+        String viewer = currentViewer();
+        boolean favorite = viewer != null && favoriteIdCache.isFavorite(viewer, propertyId);
+        return etag("property", propertyId, version, favorite, viewer, listingChangeSequence.current());
+    }
+
+    @Override
+    public String getBrowseETag(String queryString) {
+        return etag("browse", queryString, currentViewer(), listingChangeSequence.current());
+    }
+
+    private static String currentViewer() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() ? auth.getName() : null;
+    }
+
+    private static String etag(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
             }
-        } else { // default sorting
-            sort = Sort.by(Sort.Direction.DESC, "id");
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private PropertyPage searchPage(ListingQuery query, PropertyCursor after, int pageSize) {
+        if (listingIndex.isReady() && (query.text() == null || propertyTextIndex.isReady())) {
+            Map<Long, Double> textScores = query.text() != null ? propertyTextIndex.search(query.text()) : null;
+            ListingIndex.Page page = listingIndex.page(query, textScores, after, pageSize);
+            return new PropertyPage(loadInOrder(page.ids()), page.next() != null ? page.next().encode() : null,
+                    listingIndex.facets(query, textScores));
+        }
+        if (query.text() != null || query.area() != null) {
+            throw new InvalidPropertyParameterException("Search is warming up, please try again shortly.");
+        }
+        return findPageInDatabase(query, after, pageSize);
+    }
+
+    // fallback used until the listing index has been built
+    private PropertyPage findPageInDatabase(ListingQuery query, PropertyCursor after, int pageSize) {
+        // fetching one extra row tells us whether there is a next page without a count query
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<PropertyCard> rows = switch (query.sortOrder()) {
+            case ListingQuery.SORT_PRICE_ASC -> propertyRepository.findPageByPriceAsc(query.zipCode(), query.minSqft(),
+                    query.minPrice(), query.maxPrice(), after != null ? after.key() : null,
+                    after != null ? after.id() : null, limit);
+            case ListingQuery.SORT_PRICE_DESC -> propertyRepository.findPageByPriceDesc(query.zipCode(), query.minSqft(),
+                    query.minPrice(), query.maxPrice(), after != null ? after.key() : null,
+                    after != null ? after.id() : null, limit);
+            case ListingQuery.SORT_POPULAR -> propertyRepository.findPageByPopularity(query.zipCode(), query.minSqft(),
+                    query.minPrice(), query.maxPrice(), after != null && after.key() != null ? after.key().intValue() : null,
+                    after != null ? after.id() : null, limit);
+            default -> propertyRepository.findPageByIdDesc(query.zipCode(), query.minSqft(),
+                    query.minPrice(), query.maxPrice(), after != null ? after.id() : null, limit);
+        };
+
+        // facets need the index, the fallback page goes without them
+        if (rows.size() <= pageSize) {
+            return new PropertyPage(rows, null, PropertyFacets.EMPTY);
         }
 
-        return propertyRepository.findAllPropertiesWithFilters(finalZipCode, finalMinSqFt, finalMinPrice, finalMaxPrice,
-                sort);
+        List<PropertyCard> page = new ArrayList<>(rows.subList(0, pageSize));
+        PropertyCard last = page.get(page.size() - 1);
+        Double lastKey = switch (query.sortOrder()) {
+            case ListingQuery.SORT_ID_DESC -> null;
+            case ListingQuery.SORT_POPULAR -> (double) last.favoritesCount();
+            // never null since V10, a null key would send the next page back to the start
+            default -> last.price();
+        };
+        return new PropertyPage(page, new PropertyCursor(query.sortOrder(), lastKey, last.id()).encode(),
+                PropertyFacets.EMPTY);
+    }
+
+    // loads card projections for just the ids of the current page, keeping the index order
+    private List<PropertyCard> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, PropertyCard> byId = new HashMap<>();
+        for (PropertyCard card : propertyRepository.findCardsByIdIn(ids)) {
+            byId.put(card.id(), card);
+        }
+        List<PropertyCard> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PropertyCard card = byId.get(id);
+            if (card != null) { // deleted between the index read and the load
+                ordered.add(card);
+            }
+        }
+        return ordered;
+    }
+
+    // a radius around lat/lng or a zip centroid, or a bounding box; null when neither is given
+    private GeoArea resolveArea(PropertyFilterDto dto) {
+        String bbox = dto.getBbox();
+        if (bbox != null && !bbox.isBlank()) {
+            String[] parts = bbox.split(",");
+            if (parts.length != 4) {
+                throw new InvalidPropertyParameterException("Bounding box must be south,west,north,east.");
+            }
+            double[] edges = new double[4];
+            try {
+                for (int i = 0; i < 4; i++) {
+                    edges[i] = Double.parseDouble(parts[i].trim());
+                }
+            } catch (NumberFormatException e) {
+                throw new InvalidPropertyParameterException("Bounding box must be south,west,north,east.");
+            }
+            if (edges[0] > edges[2] || edges[1] > edges[3]) {
+                throw new InvalidPropertyParameterException("Bounding box south/west must not exceed north/east.");
+            }
+            return GeoArea.box(edges[0], edges[1], edges[2], edges[3]);
+        }
+
+        Double radius = dto.getRadiusMiles();
+        if (radius == null) {
+            return null;
+        }
+        if (radius <= 0 || radius > MAX_RADIUS_MILES) {
+            throw new InvalidPropertyParameterException("Radius must be between 0 and " + (int) MAX_RADIUS_MILES + " miles.");
+        }
+
+        GeoPoint center;
+        if (dto.getLat() != null && dto.getLng() != null) {
+            if (dto.getLat() < -90 || dto.getLat() > 90 || dto.getLng() < -180 || dto.getLng() > 180) {
+                throw new InvalidPropertyParameterException("Coordinates are out of range.");
+            }
+            center = new GeoPoint(dto.getLat(), dto.getLng());
+        } else if (dto.getNearZip() != null && !dto.getNearZip().isBlank()) {
+            center = zipCentroids.find(dto.getNearZip());
+            if (center == null) {
+                throw new InvalidPropertyParameterException("Unknown zip code: " + dto.getNearZip().trim() + ".");
+            }
+        } else {
+            throw new InvalidPropertyParameterException("A radius search needs a zip code or a lat/lng center.");
+        }
+        return GeoArea.circle(center, radius);
+    }
+
+    // places the listing at its zip code centroid (or off the map if the zip is unknown)
+    private void locate(Property property) {
+        GeoPoint point = zipCentroids.find(property.getZipCode());
+        if (point != null) {
+            property.setCoordinates(point.latitude(), point.longitude());
+        } else {
+            property.setCoordinates(null, null);
+        }
+    }
+
+    private int resolvePageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
     }
 
     @PreAuthorize("hasAnyAuthority('BUYER', 'AGENT')")
@@ -129,19 +392,37 @@ public class PropertyServiceImpl implements PropertyService {
             logger.warn("Failed to add property: Property with location {} already exists.", property.getLocation());
             throw new AlreadyExistsException("Property with location " + property.getLocation() + " already exists.");
         }
-        propertyRepository.save(property);
+        locate(property);
+        property.touch();
+        Property saved = propertyRepository.save(property);
+        eventPublisher.publishEvent(ListingChangedEvent.created(saved));
     }
 
     @PreAuthorize("hasAuthority('AGENT')")
     @Override
-    @Transactional
     public void updateProperty(Long propertyId,
                                AddPropertyDto addPropertyDto,
                                List<MultipartFile> newFiles) throws IOException {
+        // an edit already known to be stale writes no photos
+        Long indexedVersion = listingIndex.versionOf(propertyId);
+        if (addPropertyDto.getVersion() != null && indexedVersion != null
+                && indexedVersion > addPropertyDto.getVersion()) {
+            throw new EditConflictException(EDIT_CONFLICT_MESSAGE);
+        }
+        // photos are written before the transaction, it only records their rows
+        List<ImageStore.StoredImage> uploads = stageUploads(newFiles);
+        transactionTemplate.executeWithoutResult(status -> applyUpdate(propertyId, addPropertyDto, uploads));
+    }
 
+    private void applyUpdate(Long propertyId, AddPropertyDto addPropertyDto, List<ImageStore.StoredImage> uploads) {
         Property existingProperty = propertyRepository.findById(propertyId)
                 .orElseThrow(
                         () -> new NotFoundException("Property with ID: " + propertyId + " not found."));
+        // checked again on the row itself, the version check on flush covers concurrent saves
+        if (addPropertyDto.getVersion() != null && !addPropertyDto.getVersion().equals(existingProperty.getVersion())) {
+            throw new EditConflictException(EDIT_CONFLICT_MESSAGE);
+        }
+        ListingRow before = ListingRow.of(existingProperty);
 
         // updating property details thru dto
         existingProperty.setTitle(addPropertyDto.getTitle());
@@ -150,37 +431,27 @@ public class PropertyServiceImpl implements PropertyService {
         existingProperty.setLocation(addPropertyDto.getLocation());
         existingProperty.setZipCode(addPropertyDto.getZipCode());
         existingProperty.setSize(addPropertyDto.getSize());
-
-        // handling new image uploads
-        if (newFiles != null && !newFiles.isEmpty()) {
-            // added for image dir
-            // Path propertyDir = Paths.get(UPLOAD_DIR,
-            // String.valueOf(existingProperty.getId()));
-            Path uploadPath = Paths.get(System.getProperty("user.dir"), UPLOAD_DIR,
-                    existingProperty.getId().toString());
-            Files.createDirectories(uploadPath);
-
-            for (MultipartFile file : newFiles) {
-                if (!file.isEmpty()) {
-                    String originalFilename = file.getOriginalFilename();
-
-                    String uniqueFilename = UUID.randomUUID() + originalFilename;
-                    Path newUploadPath = uploadPath.resolve(uniqueFilename);
-                    try {
-                        file.transferTo(newUploadPath.toFile());
-                    } catch (IOException e) {
-                        throw new InvalidPropertyImageParameterException("Unable to upload Image: " + e.getMessage());
-                    }
-
-                    PropertyImage image = new PropertyImage(uniqueFilename, existingProperty);
-                    existingProperty.addImage(image);
-                } else {
-                    logger.warn("Skipping empty new image file during property update.");
-                }
-            }
+        locate(existingProperty);
+        existingProperty.touch();
+
+        // recording the new image uploads, inserted now so they have ids for the cover
+        for (ImageStore.StoredImage stored : uploads) {
+            PropertyImage image = new PropertyImage(stored.filename(), stored.contentHash(), existingProperty);
+            existingProperty.addImage(image);
+            propertyImageRepository.save(image);
         }
+        existingProperty.setCoverImage(addPropertyDto.getCoverImageId());
+        existingProperty.refreshCover();
 
-        propertyRepository.save(existingProperty);
+        try {
+            propertyRepository.saveAndFlush(existingProperty);
+        } catch (OptimisticLockingFailureException e) {
+            throw new EditConflictException(EDIT_CONFLICT_MESSAGE);
+        }
+        eventPublisher.publishEvent(ListingChangedEvent.updated(before, existingProperty));
+        if (!uploads.isEmpty()) {
+            eventPublisher.publishEvent(new ImagesUploadedEvent(existingProperty.getId()));
+        }
         logger.info("Property with ID {} updated successfully.", propertyId);
     }
 
@@ -191,15 +462,9 @@ public class PropertyServiceImpl implements PropertyService {
         Property property = propertyRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Property with ID: " + id + " not found to delete."));
 
-        try {
-            Path propertyDir = Paths.get(UPLOAD_DIR, String.valueOf(property.getId()));
-            if (Files.exists(propertyDir)) {
-                Files.walk(propertyDir).sorted(java.util.Comparator.reverseOrder()).map(Path::toFile)
-                        .forEach(java.io.File::delete);
-                logger.info("Deleted image directory for property ID {}: {}", id, propertyDir);
-            }
-        } catch (IOException e) {
-            logger.warn("Failed to delete image directory for property ID {}: {}", id, e.getMessage());
+        List<ImageStore.StoredImage> images = new ArrayList<>();
+        for (PropertyImage image : property.getImages()) {
+            images.add(new ImageStore.StoredImage(image.getContentHash(), image.getImageFilename()));
         }
 
         // Remove property from agent's list
@@ -215,6 +480,7 @@ public class PropertyServiceImpl implements PropertyService {
             if (buyer != null) {
                 buyer.removeFavorite(favorite);
                 userRepository.save(buyer);
+                eventPublisher.publishEvent(new FavoriteChangedEvent(buyer.getEmail(), id, false));
             }
         }
 
@@ -228,13 +494,22 @@ public class PropertyServiceImpl implements PropertyService {
         }
 
         propertyRepository.delete(property);
+        // blobs and the listing's upload folder go once the delete has committed
+        eventPublisher.publishEvent(new ImagesReleasedEvent(id, images, true));
+        eventPublisher.publishEvent(ListingChangedEvent.deleted(property));
         logger.info("Property with ID {} and its associated images deleted successfully.", id);
     }
 
     @PreAuthorize("hasAuthority('AGENT')")
     @Override
-    @Transactional
     public void addPropertyFromDto(AddPropertyDto dto, List<MultipartFile> files) {
+        logger.info("Service received files for new property: {} files.", (files != null ? files.size() : "null"));
+        // photos are written before the transaction, it only records their rows
+        List<ImageStore.StoredImage> uploads = stageUploads(files);
+        transactionTemplate.executeWithoutResult(status -> addProperty(dto, uploads));
+    }
+
+    private void addProperty(AddPropertyDto dto, List<ImageStore.StoredImage> uploads) {
         Property property = new Property();
 
         // mapping the fieds from DTO to entity
@@ -244,47 +519,39 @@ public class PropertyServiceImpl implements PropertyService {
         property.setZipCode(dto.getZipCode());
         property.setPrice(dto.getPrice());
         property.setSize(dto.getSize());
+        locate(property);
 
         User currAgent = userService.getCurrentUserContext().user();
         currAgent.addProperty(property);
 
         Property saved = propertyRepository.save(property);
 
-        logger.info("Service received files for new property (ID: {}): {} files.", property.getId(),
-                (files != null ? files.size() : "null"));
-
-        if (files != null && !files.isEmpty()) {
-            Path uploadPath = Paths.get(System.getProperty("user.dir"), UPLOAD_DIR, saved.getId().toString());
-            try {
-                Files.createDirectories(uploadPath);
-            } catch (IOException e) {
-                throw new InvalidPropertyImageParameterException("Unable save image: " + e.getMessage());
-            }
-
-            for (MultipartFile file : files) {
-                if (!file.isEmpty()) {
-                    String originalFilename = file.getOriginalFilename();
-
-                    String uniqueFilename = UUID.randomUUID() + originalFilename;
-                    Path newUploadPath = uploadPath.resolve(uniqueFilename);
-                    try {
-                        file.transferTo(newUploadPath.toFile());
-                    } catch (IOException e) {
-                        throw new InvalidPropertyImageParameterException("Unable to upload Image: " + e.getMessage());
-                    }
-
-                    PropertyImage image = new PropertyImage(uniqueFilename, saved);
-                    saved.addImage(image);
-                } else {
-                    logger.warn("Skipping empty new image file during property update.");
-                }
-            }
-        } else {
+        for (ImageStore.StoredImage stored : uploads) {
+            PropertyImage image = new PropertyImage(stored.filename(), stored.contentHash(), saved);
+            saved.addImage(image);
+            propertyImageRepository.save(image);
+        }
+        if (uploads.isEmpty()) {
             logger.info("No files/empty files list provided to service for new property (ID: {}).", property.getId());
         }
+        // the first photo is the cover until the agent picks another one
+        saved.refreshCover();
+
+        // re-saving the propety for newly added images, flushed so the event carries the new version
+        property.touch();
+        propertyRepository.saveAndFlush(property);
+        eventPublisher.publishEvent(ListingChangedEvent.created(saved));
+        if (!saved.getImages().isEmpty()) {
+            eventPublisher.publishEvent(new ImagesUploadedEvent(saved.getId()));
+        }
+    }
 
-        // re-saving the propety for newly added images
-        propertyRepository.save(property);
+    private List<ImageStore.StoredImage> stageUploads(List<MultipartFile> files) {
+        try {
+            return imageUploadStager.stage(files);
+        } catch (IOException e) {
+            throw new InvalidPropertyImageParameterException("Unable to upload Image: " + e.getMessage());
+        }
     }
 
     @PreAuthorize("hasAnyAuthority('AGENT', 'BUYER')")
@@ -316,29 +583,27 @@ public class PropertyServiceImpl implements PropertyService {
 
         logger.info("Service: Image ID: {} belongs to Property ID: {}", imageId, propertyId);
 
-        Path filePath = Paths.get(UPLOAD_DIR, imageDelete.getImageFilename());
-        try {
-            Files.deleteIfExists(filePath);
-            logger.info("Service deleted image file: {}", imageDelete.getImageFilename());
-        } catch (IOException e) {
-            logger.error("Service could not delete image file {}: {}", imageDelete.getImageFilename(), e.getMessage(),
-                    e);
-            throw new RuntimeException("Failed to delete image: " + e.getMessage(), e);
-        }
-
         // using helper function to remove image
         property.removeImage(imageDelete);
+        property.refreshCover();
         logger.info("Service: Removed image ID: {} from property's collection.", imageId);
 
         propertyImageRepository.delete(imageDelete);
         logger.info("Service deleted image with ID: {}", imageId);
 
-        propertyRepository.save(property);
+        property.touch();
+        propertyRepository.saveAndFlush(property);
+        // the blob is shared with any other listing using the same photo, only the last reference deletes it
+        eventPublisher.publishEvent(new ImagesReleasedEvent(propertyId, List.of(
+                new ImageStore.StoredImage(imageDelete.getContentHash(), imageDelete.getImageFilename())), false));
+        // the card's cover image may have changed
+        eventPublisher.publishEvent(ListingChangedEvent.updated(ListingRow.of(property), property));
         logger.info("Service: Property ID {} saved after image deletion.", propertyId);
     }
 
     @PreAuthorize("hasAuthority('BUYER')")
     @Override
+    @Transactional
     public void favouritePropertyById(Long propertyId) {
         Property p = propertyRepository.findPropertyById(propertyId);
         User user = userService.getCurrentUserContext().user();
@@ -346,10 +611,12 @@ public class PropertyServiceImpl implements PropertyService {
             throw new NotFoundException("No property with id " + propertyId);
         }
 
-        Favorite f = new Favorite(user, p);
-        p.addFavorite(f);
-
-        propertyRepository.save(p);
+        // saved on its own: adding it through the property's collection would bump the
+        // property's version and fail an agent's edit in progress
+        favoriteRepository.save(new Favorite(user, p));
+        propertyRepository.incrementFavoritesCount(propertyId);
+        eventPublisher.publishEvent(new FavoriteCountChangedEvent(propertyId, 1));
+        eventPublisher.publishEvent(new FavoriteChangedEvent(user.getEmail(), propertyId, true));
     }
 
 
@@ -370,4 +637,14 @@ public class PropertyServiceImpl implements PropertyService {
 
         return propertyRepository.findAllByAgentId(agent.getId());
     }
+
+    @Override
+    public void recordView(Long propertyId) {
+        propertyViewCounter.recordView(propertyId);
+    }
+
+    @Override
+    public Map<Long, Long> getViewCounts(List<Property> properties) {
+        return propertyViewCounter.viewCounts(properties.stream().map(Property::getId).toList());
+    }
 }
@@ -12,8 +12,15 @@ import edu.final_project.hot_properties.exceptions.NotFoundException;
 import edu.final_project.hot_properties.repositories.PropertyRepository;
 import edu.final_project.hot_properties.repositories.RoleRepository;
 import edu.final_project.hot_properties.repositories.UserRepository;
+import edu.final_project.hot_properties.services.favorites.FavoriteChangedEvent;
+import edu.final_project.hot_properties.services.images.ImageStore;
+import edu.final_project.hot_properties.services.images.ImagesReleasedEvent;
+import edu.final_project.hot_properties.services.search.FavoriteCountChangedEvent;
+import edu.final_project.hot_properties.services.search.ListingChangedEvent;
 import jakarta.transaction.Transactional;
 
+import org.springframework.context.ApplicationEventPublisher;
+
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -34,15 +41,18 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final PropertyRepository propertyRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
 
     public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository,
-            PasswordEncoder passwordEncoder, PropertyRepository propertyRepository) {
+            PasswordEncoder passwordEncoder, PropertyRepository propertyRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.propertyRepository = propertyRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -140,7 +150,11 @@ public class UserServiceImpl implements UserService {
         for (Favorite favorite : new ArrayList<>(user.getFavorites())) {
             logger.info("Removing favorite property with ID {} for user {}", favorite.getProperty().getId(),
                     user.getEmail());
+            Long propertyId = favorite.getProperty().getId();
             user.removeFavorite(favorite);
+            propertyRepository.decrementFavoritesCount(propertyId);
+            eventPublisher.publishEvent(new FavoriteCountChangedEvent(propertyId, -1));
+            eventPublisher.publishEvent(new FavoriteChangedEvent(user.getEmail(), propertyId, false));
         }
 
         // if its agent ddelete all propertiess related to iit
@@ -149,12 +163,18 @@ public class UserServiceImpl implements UserService {
         if (user.getRole().getName().equalsIgnoreCase("AGENT")) {
             List<Property> properties = propertyRepository.findAllByAgentId(user.getId());
             for (Property property : properties) {
+                List<ImageStore.StoredImage> images = new ArrayList<>();
+                for (PropertyImage image : property.getImages()) {
+                    images.add(new ImageStore.StoredImage(image.getContentHash(), image.getImageFilename()));
+                }
                 // Remove all favorites for this property
                 for (Favorite favorite : new ArrayList<>(property.getFavorites())) {
                     User buyer = favorite.getBuyer();
                     if (buyer != null) {
                         buyer.removeFavorite(favorite);
                         userRepository.save(buyer);
+                        eventPublisher.publishEvent(
+                                new FavoriteChangedEvent(buyer.getEmail(), property.getId(), false));
                     }
                 }
                 // Remove all messages for this property
@@ -168,6 +188,9 @@ public class UserServiceImpl implements UserService {
                 // Remove property from agent's list
                 user.removeProperty(property);
                 propertyRepository.delete(property);
+                // blobs and the listing's upload folder go once the delete has committed
+                eventPublisher.publishEvent(new ImagesReleasedEvent(property.getId(), images, true));
+                eventPublisher.publishEvent(ListingChangedEvent.deleted(property));
             }
         }
 
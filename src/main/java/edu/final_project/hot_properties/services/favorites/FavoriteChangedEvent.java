@@ -0,0 +1,6 @@
+package edu.final_project.hot_properties.services.favorites;
+
+/// Published when a buyer's favorite is added or removed, including removals caused by
+/// deleting the listing or the buyer. Keeps {@link FavoriteIdCache} in step after commit.
+public record FavoriteChangedEvent(String buyerEmail, Long propertyId, boolean favorited) {
+}
@@ -0,0 +1,142 @@
+package edu.final_project.hot_properties.services.favorites;
+
+import edu.final_project.hot_properties.repositories.FavoriteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Bounded LRU + TTL cache of the property ids each buyer has favorited, keyed by email (the
+/// name on the security context, so a check needs no user lookup).
+///
+/// A buyer's ids are held as a sorted `long[]`: a few bytes per favorite and a binary search
+/// per check, which for lists of this size costs about as much as hashing a boxed Long.
+/// Entries are updated in place by {@link FavoriteChangedEvent} after commit; the TTL only
+/// bounds drift from writes that bypass the services (manual edits to the favorites table).
+@Component
+public class FavoriteIdCache {
+
+    private record Entry(long[] ids, long loadedAt) {
+
+        boolean contains(long propertyId) {
+            return Arrays.binarySearch(ids, propertyId) >= 0;
+        }
+
+        Entry with(long propertyId) {
+            int at = Arrays.binarySearch(ids, propertyId);
+            if (at >= 0) {
+                return this;
+            }
+            int insert = -at - 1;
+            long[] next = new long[ids.length + 1];
+            System.arraycopy(ids, 0, next, 0, insert);
+            next[insert] = propertyId;
+            System.arraycopy(ids, insert, next, insert + 1, ids.length - insert);
+            return new Entry(next, loadedAt);
+        }
+
+        Entry without(long propertyId) {
+            int at = Arrays.binarySearch(ids, propertyId);
+            if (at < 0) {
+                return this;
+            }
+            long[] next = new long[ids.length - 1];
+            System.arraycopy(ids, 0, next, 0, at);
+            System.arraycopy(ids, at + 1, next, at, ids.length - at - 1);
+            return new Entry(next, loadedAt);
+        }
+    }
+
+    private final FavoriteRepository favoriteRepository;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    // bumped on every change so ids read before a write are never stored after it
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FavoriteIdCache(FavoriteRepository favoriteRepository,
+                           @Value("${property.favorites-cache.max-entries:10000}") int maxEntries,
+                           @Value("${property.favorites-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.favoriteRepository = favoriteRepository;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > FavoriteIdCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isFavorite(String buyerEmail, Long propertyId) {
+        return propertyId != null && load(buyerEmail).contains(propertyId);
+    }
+
+    private Entry load(String buyerEmail) {
+        synchronized (entries) {
+            Entry entry = entries.get(buyerEmail);
+            if (entry != null && System.currentTimeMillis() - entry.loadedAt() <= ttlMillis) {
+                hits.incrementAndGet();
+                return entry;
+            }
+            if (entry != null) {
+                entries.remove(buyerEmail);
+                evictions.incrementAndGet();
+            }
+            misses.incrementAndGet();
+        }
+        long computedAt = generation.get();
+        List<Long> ids = favoriteRepository.findPropertyIdsByBuyerEmail(buyerEmail);
+        long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        Entry loaded = new Entry(sorted, System.currentTimeMillis());
+        synchronized (entries) {
+            if (generation.get() == computedAt) {
+                entries.put(buyerEmail, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onFavoriteChanged(FavoriteChangedEvent event) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            Entry entry = entries.get(event.buyerEmail());
+            if (entry != null) {
+                entries.put(event.buyerEmail(),
+                        event.favorited() ? entry.with(event.propertyId()) : entry.without(event.propertyId()));
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
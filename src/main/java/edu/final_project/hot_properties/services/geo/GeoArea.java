@@ -0,0 +1,27 @@
+package edu.final_project.hot_properties.services.geo;
+
+/// A browse area: either a circle (center + radius) or a plain bounding box. Circles carry
+/// their enclosing box too, so the spatial index can pick candidate cells the same way for both.
+public record GeoArea(double south, double west, double north, double east, GeoPoint center, Double radiusMiles) {
+
+    public static GeoArea circle(GeoPoint center, double radiusMiles) {
+        double dLat = Math.toDegrees(radiusMiles / GeoPoint.EARTH_RADIUS_MILES);
+        double dLng = dLat / Math.max(Math.cos(Math.toRadians(center.latitude())), 0.01);
+        return new GeoArea(center.latitude() - dLat, center.longitude() - dLng,
+                center.latitude() + dLat, center.longitude() + dLng, center, radiusMiles);
+    }
+
+    public static GeoArea box(double south, double west, double north, double east) {
+        return new GeoArea(south, west, north, east, null, null);
+    }
+
+    public boolean contains(Double lat, Double lng) {
+        if (lat == null || lng == null) {
+            return false;
+        }
+        if (lat < south || lat > north || lng < west || lng > east) {
+            return false;
+        }
+        return center == null || center.distanceMiles(lat, lng) <= radiusMiles;
+    }
+}
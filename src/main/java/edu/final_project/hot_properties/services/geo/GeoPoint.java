@@ -0,0 +1,17 @@
+package edu.final_project.hot_properties.services.geo;
+
+// a WGS84 coordinate in decimal degrees
+public record GeoPoint(double latitude, double longitude) {
+
+    static final double EARTH_RADIUS_MILES = 3958.8;
+
+    // great-circle (haversine) distance
+    public double distanceMiles(double lat, double lng) {
+        double dLat = Math.toRadians(lat - latitude);
+        double dLng = Math.toRadians(lng - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(lat))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_MILES * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,49 @@
+package edu.final_project.hot_properties.services.geo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/// Offline zip code -> centroid lookup backed by the bundled geo/zip-centroids.csv, used to
+/// place listings on the map without calling a geocoding service.
+@Component
+public class ZipCentroids {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZipCentroids.class);
+    private static final String DATASET = "geo/zip-centroids.csv";
+
+    private final Map<String, GeoPoint> centroids = new HashMap<>();
+
+    public ZipCentroids() {
+        ClassPathResource resource = new ClassPathResource(DATASET);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#") || line.startsWith("zip")) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                centroids.put(parts[0].trim(),
+                        new GeoPoint(Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim())));
+            }
+            logger.info("Loaded {} zip code centroids.", centroids.size());
+        } catch (IOException | RuntimeException e) {
+            // listings just stay off the map, everything else keeps working
+            logger.error("Failed to load zip centroids from {}: {}", DATASET, e.getMessage());
+        }
+    }
+
+    // null when the zip is not in the dataset
+    public GeoPoint find(String zipCode) {
+        return zipCode != null ? centroids.get(zipCode.trim()) : null;
+    }
+}
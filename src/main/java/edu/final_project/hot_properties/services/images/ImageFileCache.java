@@ -0,0 +1,140 @@
+package edu.final_project.hot_properties.services.images;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Bounded LRU of open file channels for the most requested images, so a hot photo is not
+/// opened, stat'ed and closed again on every request.
+///
+/// Channels are shared between requests (positional transfers do not touch the channel's
+/// position) and reference counted: an evicted file is closed once the last transfer using
+/// it has finished.
+@Component
+public class ImageFileCache {
+
+    public static final class OpenFile {
+        private final Path path;
+        private final FileChannel channel;
+        private final long size;
+        // one reference held by the cache itself, one per request using it
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        private OpenFile(Path path, FileChannel channel, long size) {
+            this.path = path;
+            this.channel = channel;
+            this.size = size;
+        }
+
+        public Path path() {
+            return path;
+        }
+
+        public FileChannel channel() {
+            return channel;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        private boolean retain() {
+            while (true) {
+                int current = refs.get();
+                if (current == 0) {
+                    return false; // already closed
+                }
+                if (refs.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        public void release() {
+            if (refs.decrementAndGet() == 0) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // nothing left to do with a channel that failed to close
+                }
+            }
+        }
+    }
+
+    private final int maxOpenFiles;
+    private final LinkedHashMap<String, OpenFile> files;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ImageFileCache(@Value("${property.image-serving.open-files:256}") int maxOpenFiles) {
+        this.maxOpenFiles = maxOpenFiles;
+        this.files = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OpenFile> eldest) {
+                if (size() > ImageFileCache.this.maxOpenFiles) {
+                    eldest.getValue().release();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /// The open file, or null when it does not exist. Callers must {@link OpenFile#release()} it.
+    public OpenFile acquire(String key, Path path) throws IOException {
+        synchronized (files) {
+            OpenFile cached = files.get(key);
+            if (cached != null && cached.retain()) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        OpenFile opened = new OpenFile(path, channel, channel.size());
+        opened.retain(); // the caller's reference
+        synchronized (files) {
+            OpenFile previous = files.put(key, opened);
+            if (previous != null) {
+                previous.release();
+            }
+        }
+        return opened;
+    }
+
+    // called when a blob is deleted, so the channel does not keep serving the unlinked file
+    public void evict(String key) {
+        synchronized (files) {
+            OpenFile removed = files.remove(key);
+            if (removed != null) {
+                removed.release();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        int size;
+        synchronized (files) {
+            size = files.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("openFiles", size);
+        stats.put("maxOpenFiles", maxOpenFiles);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+}
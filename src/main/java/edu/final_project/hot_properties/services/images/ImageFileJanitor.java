@@ -0,0 +1,244 @@
+package edu.final_project.hot_properties.services.images;
+
+import edu.final_project.hot_properties.repositories.PropertyImageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/// Keeps the image files in step with the `property_images` rows.
+///
+/// Deletes are applied after the deleting transaction commits, off the request thread. What
+/// still drifts (a crash between commit and delete, blobs written for a create that rolled
+/// back, a full queue) is found by the periodic reconciliation, which walks the blob folder
+/// and the image rows in fixed size batches so neither side is ever held in memory whole.
+@Component
+public class ImageFileJanitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageFileJanitor.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    public record Report(Instant finishedAt, long durationMs, long blobFiles, long orphanFiles, long deletedFiles,
+                         long imageRows, long missingOriginals, long missingVariants) {
+    }
+
+    private final PropertyImageRepository propertyImageRepository;
+    private final ImageStore imageStore;
+    private final Path uploadRoot;
+    private final boolean collect;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private volatile Report lastReport;
+
+    public ImageFileJanitor(PropertyImageRepository propertyImageRepository, ImageStore imageStore,
+                            @Value("${property.upload.dir}") String uploadDir,
+                            @Value("${property.image-reconciler.collect:true}") boolean collect) {
+        this.propertyImageRepository = propertyImageRepository;
+        this.imageStore = imageStore;
+        this.uploadRoot = Paths.get(System.getProperty("user.dir"), uploadDir);
+        this.collect = collect;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000), runnable -> {
+            Thread thread = new Thread(runnable, "image-janitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // after commit only: a rolled back delete still has its rows, and its files
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagesReleased(ImagesReleasedEvent event) {
+        try {
+            executor.execute(() -> {
+                for (ImageStore.StoredImage image : event.images()) {
+                    imageStore.release(event.propertyId(), image);
+                }
+                if (event.listingDeleted()) {
+                    deleteListingFolder(event.propertyId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Image janitor queue is full, files of property {} are left for reconciliation.",
+                    event.propertyId());
+        }
+    }
+
+    // images uploaded before the blob store; adopted files are linked into the store, so
+    // removing the folder never takes a blob with it
+    private void deleteListingFolder(Long propertyId) {
+        Path propertyDir = uploadRoot.resolve(String.valueOf(propertyId));
+        if (!Files.isDirectory(propertyDir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(propertyDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            logger.info("Deleted image directory for property ID {}: {}", propertyId, propertyDir);
+        } catch (IOException e) {
+            logger.warn("Failed to delete image directory for property ID {}: {}", propertyId, e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${property.image-reconciler.cron:0 30 3 * * *}")
+    public void reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            long[] blobs = reconcileBlobs();
+            long[] rows = reconcileRows();
+            Report report = new Report(Instant.now(), (System.nanoTime() - started) / 1_000_000,
+                    blobs[0], blobs[1], blobs[2], rows[0], rows[1], rows[2]);
+            lastReport = report;
+            logger.info("Image reconciliation finished: {}", report);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Image reconciliation failed: {}", e.getMessage());
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    // blob files no row references: {files seen, orphans past the grace period, deleted}
+    private long[] reconcileBlobs() throws IOException {
+        long[] counts = new long[3];
+        Path blobDir = imageStore.blobDirectory();
+        if (!Files.isDirectory(blobDir)) {
+            return counts;
+        }
+        Instant cutoff = Instant.now().minus(ImageStore.REUSE_GRACE);
+        // files grouped by content hash, a blob and its variants share one lookup
+        Map<String, List<Path>> batch = new HashMap<>();
+        int batched = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(blobDir)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.startsWith(".")) {
+                    // temp file of an interrupted upload or resize
+                    if (olderThan(entry, cutoff) && collect) {
+                        Files.deleteIfExists(entry);
+                    }
+                    continue;
+                }
+                if (!ImageStore.BLOB_NAME.matcher(name).matches()) {
+                    continue;
+                }
+                counts[0]++;
+                batch.computeIfAbsent(name.substring(0, 64), hash -> new ArrayList<>()).add(entry);
+                if (++batched == BATCH_SIZE) {
+                    collectOrphans(batch, cutoff, counts);
+                    batch.clear();
+                    batched = 0;
+                }
+            }
+        }
+        collectOrphans(batch, cutoff, counts);
+        return counts;
+    }
+
+    private void collectOrphans(Map<String, List<Path>> batch, Instant cutoff, long[] counts) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> referenced = new HashSet<>(propertyImageRepository.findReferencedHashes(batch.keySet()));
+        for (Map.Entry<String, List<Path>> entry : batch.entrySet()) {
+            if (referenced.contains(entry.getKey())) {
+                continue;
+            }
+            for (Path file : entry.getValue()) {
+                if (!olderThan(file, cutoff)) {
+                    continue; // may belong to an upload that has not committed yet
+                }
+                counts[1]++;
+                if (collect) {
+                    // re-checked under the store's lock, a new upload may have just claimed it
+                    imageStore.release(entry.getKey(), file.getFileName().toString());
+                    if (!Files.exists(file)) {
+                        counts[2]++;
+                    }
+                } else {
+                    logger.info("Orphan image file {}", file.getFileName());
+                }
+            }
+        }
+    }
+
+    // rows whose files are gone: {rows seen, missing originals, missing variants}
+    private long[] reconcileRows() {
+        long[] counts = new long[3];
+        long afterId = 0;
+        List<StoredImageFiles> rows;
+        do {
+            rows = propertyImageRepository.findStoredImagesAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+            for (StoredImageFiles row : rows) {
+                counts[0]++;
+                if (!Files.exists(imageStore.resolve(row.imageFilename()))) {
+                    counts[1]++;
+                    logger.warn("Image {} has no file, {} is missing.", row.id(), row.imageFilename());
+                } else if (missing(row.thumbnailFilename()) || missing(row.cardFilename())
+                        || missing(row.galleryFilename())) {
+                    counts[2]++;
+                    if (collect) {
+                        // pending again, the variant sweep writes them anew
+                        propertyImageRepository.updateVariants(row.id(), null, null, null);
+                    }
+                }
+            }
+            if (!rows.isEmpty()) {
+                afterId = rows.get(rows.size() - 1).id();
+            }
+        } while (rows.size() == BATCH_SIZE);
+        return counts;
+    }
+
+    private boolean missing(String filename) {
+        return filename != null && !Files.exists(imageStore.resolve(filename));
+    }
+
+    private static boolean olderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false; // gone already
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingDeletes", executor.getQueue().size());
+        stats.put("lastReconciliation", lastReport);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown(); // queued deletes still run, anything cut short is reconciled later
+    }
+}
@@ -0,0 +1,224 @@
+package edu.final_project.hot_properties.services.images;
+
+import edu.final_project.hot_properties.repositories.PropertyImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/// Content-addressed store for uploaded images.
+///
+/// Each image is kept once under `uploads/blobs/<sha256>.<ext>`, however many listings use it.
+/// The hash is computed while the upload streams to a temp file, which is then renamed into
+/// place, or dropped if that content is already stored. `property_images.content_hash` rows
+/// are the references: a blob and its variants are unlinked only once no row points at it.
+@Component
+public class ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStore.class);
+
+    public static final String BLOB_FOLDER = "blobs";
+
+    // where ImageController serves the blobs
+    public static final String URL_PREFIX = "/images/uploads/blobs/";
+
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,5}");
+
+    // a stored blob or one of its variants
+    public static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}(-(thumb|card|gallery))?\\.[a-z0-9]{1,5}");
+
+    // a blob reused more recently than this is never unlinked by a release
+    static final Duration REUSE_GRACE = Duration.ofMinutes(10);
+
+    // stored name and hash of an image, what a PropertyImage row records
+    public record StoredImage(String contentHash, String filename) {
+    }
+
+    private final PropertyImageRepository propertyImageRepository;
+    private final ImageFileCache imageFileCache;
+    private final Path blobDir;
+
+    // storing and releasing the same content must not interleave, or a release could unlink a
+    // blob a concurrent upload has just found in place; striped so the locks stay bounded
+    private final Object[] hashLocks = new Object[64];
+
+    public ImageStore(PropertyImageRepository propertyImageRepository, ImageFileCache imageFileCache,
+                      @Value("${property.upload.dir}") String uploadDir) {
+        this.propertyImageRepository = propertyImageRepository;
+        this.imageFileCache = imageFileCache;
+        this.blobDir = Paths.get(System.getProperty("user.dir"), uploadDir, BLOB_FOLDER);
+        for (int i = 0; i < hashLocks.length; i++) {
+            hashLocks[i] = new Object();
+        }
+    }
+
+    public Path resolve(String filename) {
+        return blobDir.resolve(filename);
+    }
+
+    Path blobDirectory() {
+        return blobDir;
+    }
+
+    public StoredImage store(InputStream content, String originalFilename) throws IOException {
+        Files.createDirectories(blobDir);
+        Path temp = blobDir.resolve(".upload-" + UUID.randomUUID());
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String filename = hash + "." + extensionOf(originalFilename);
+            Path blob = blobDir.resolve(filename);
+            synchronized (lockFor(hash)) {
+                // an atomic rename replaces an existing target, so the check comes first; a
+                // blob adopted as a hard link must stay that link
+                if (Files.exists(blob)) {
+                    logger.debug("Image {} is already stored, reusing it.", filename);
+                    markReused(blob);
+                } else {
+                    Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            return new StoredImage(hash, filename);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /// Adopts a file kept outside the store (seed images, uploads from before the store
+    /// existed). The blob is a hard link where the file system allows it, so the original can
+    /// stay where it is at no extra disk cost.
+    public StoredImage adopt(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        String filename = hash + "." + extensionOf(file.getFileName().toString());
+        Path blob = blobDir.resolve(filename);
+        Files.createDirectories(blobDir);
+        synchronized (lockFor(hash)) {
+            if (!Files.exists(blob)) {
+                try {
+                    Files.createLink(blob, file);
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(file, blob);
+                }
+            } else {
+                markReused(blob);
+            }
+        }
+        return new StoredImage(hash, filename);
+    }
+
+    /// Called once a listing's image row is gone (and committed). Stored images go through
+    /// {@link #release(String, String)}; a row from before the store points at its own file
+    /// in the listing folder, which is deleted unless another row of the listing still uses it.
+    public boolean release(Long propertyId, StoredImage image) {
+        if (image.contentHash() != null) {
+            return release(image.contentHash(), image.filename());
+        }
+        synchronized (lockFor(image.filename())) {
+            if (propertyImageRepository.existsByPropertyIdAndImageFilename(propertyId, image.filename())) {
+                return false;
+            }
+            Path file = blobDir.resolveSibling(String.valueOf(propertyId)).resolve(image.filename()).normalize();
+            if (!file.startsWith(blobDir.getParent())) {
+                return false;
+            }
+            try {
+                boolean deleted = Files.deleteIfExists(file);
+                if (deleted) {
+                    logger.info("Deleted image file {} of property {}.", image.filename(), propertyId);
+                }
+                return deleted;
+            } catch (IOException e) {
+                logger.warn("Failed to delete image file {} of property {}: {}", image.filename(), propertyId,
+                        e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /// Called once a row referencing the blob is gone (and committed): unlinks the blob and its
+    /// variants when that was the last reference. True when the files were deleted.
+    public boolean release(String contentHash, String filename) {
+        if (contentHash == null) {
+            return false;
+        }
+        synchronized (lockFor(contentHash)) {
+            if (propertyImageRepository.countByContentHash(contentHash) > 0) {
+                return false;
+            }
+            Path blob = blobDir.resolve(filename);
+            try {
+                if (Files.exists(blob)
+                        && Files.getLastModifiedTime(blob).toInstant().isAfter(Instant.now().minus(REUSE_GRACE))) {
+                    // an upload may have just found it and not committed its row yet
+                    logger.info("Keeping image blob {}, it was reused moments ago.", filename);
+                    return false;
+                }
+                Files.deleteIfExists(blob);
+                imageFileCache.evict(filename);
+                for (ImageVariant variant : ImageVariant.values()) {
+                    Files.deleteIfExists(blobDir.resolve(variant.filenameFor(filename)));
+                    imageFileCache.evict(variant.filenameFor(filename));
+                }
+                logger.info("Deleted image blob {}, no listing uses it anymore.", filename);
+                return true;
+            } catch (IOException e) {
+                logger.warn("Failed to delete image blob {}: {}", filename, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    // an upload that finds its content already stored has no row yet, the fresh timestamp
+    // keeps a concurrent release from unlinking the blob under it
+    private static void markReused(Path blob) throws IOException {
+        Files.setLastModifiedTime(blob, FileTime.from(Instant.now()));
+    }
+
+    private Object lockFor(String hash) {
+        return hashLocks[Math.floorMod(hash.hashCode(), hashLocks.length)];
+    }
+
+    // lower-cased, jpeg folded into jpg, so the same photo uploaded twice maps to one name
+    static String extensionOf(String filename) {
+        int dot = filename != null ? filename.lastIndexOf('.') : -1;
+        String ext = dot >= 0 ? filename.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        if (ext.equals("jpeg")) {
+            return "jpg";
+        }
+        return EXTENSION.matcher(ext).matches() ? ext : "bin";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
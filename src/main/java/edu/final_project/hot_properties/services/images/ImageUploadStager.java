@@ -0,0 +1,105 @@
+package edu.final_project.hot_properties.services.images;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// Writes the photos of a create/edit request into the {@link ImageStore} before the listing's
+/// transaction opens, so the transaction only records the rows and its connection hold time no
+/// longer grows with the number and size of the photos.
+///
+/// The files of one request are hashed and written concurrently on a small shared pool; the
+/// pool size bounds the disk writers across all requests, further files wait their turn.
+@Component
+public class ImageUploadStager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageUploadStager.class);
+
+    private final ImageStore imageStore;
+    private final ThreadPoolExecutor executor;
+
+    public ImageUploadStager(ImageStore imageStore,
+                             @Value("${property.image-upload.threads:4}") int threads) {
+        this.imageStore = imageStore;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "image-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true); // idle between uploads
+    }
+
+    /// Stores the non-empty files, in the order given. Blobs already written when another file
+    /// fails stay unreferenced and are collected like any other orphan.
+    public List<ImageStore.StoredImage> stage(List<MultipartFile> files) throws IOException {
+        List<MultipartFile> uploads = new ArrayList<>();
+        if (files != null) {
+            for (MultipartFile file : files) {
+                if (file.isEmpty()) {
+                    logger.warn("Skipping empty image file in upload.");
+                } else {
+                    uploads.add(file);
+                }
+            }
+        }
+        if (uploads.size() <= 1) {
+            // nothing to overlap, no hand-off
+            List<ImageStore.StoredImage> stored = new ArrayList<>();
+            for (MultipartFile file : uploads) {
+                stored.add(store(file));
+            }
+            return stored;
+        }
+
+        List<Future<ImageStore.StoredImage>> pending = new ArrayList<>(uploads.size());
+        for (MultipartFile file : uploads) {
+            pending.add(executor.submit(() -> store(file)));
+        }
+        List<ImageStore.StoredImage> stored = new ArrayList<>(uploads.size());
+        try {
+            for (Future<ImageStore.StoredImage> future : pending) {
+                stored.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            pending.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            pending.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while storing uploaded images");
+        }
+        return stored;
+    }
+
+    // stored by content hash, a photo already on disk is not written again
+    private ImageStore.StoredImage store(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return imageStore.store(in, file.getOriginalFilename());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
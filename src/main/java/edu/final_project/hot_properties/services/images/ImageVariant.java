@@ -0,0 +1,40 @@
+package edu.final_project.hot_properties.services.images;
+
+/// Resized copies kept for every uploaded image. CARD and THUMBNAIL are cropped to fill their
+/// box exactly, GALLERY keeps the whole photo and is only ever scaled down.
+public enum ImageVariant {
+    THUMBNAIL("thumb", 160, 120, true),
+    CARD("card", 400, 200, true),
+    GALLERY("gallery", 1600, 1200, false);
+
+    private final String suffix;
+    private final int width;
+    private final int height;
+    private final boolean crop;
+
+    ImageVariant(String suffix, int width, int height, boolean crop) {
+        this.suffix = suffix;
+        this.width = width;
+        this.height = height;
+        this.crop = crop;
+    }
+
+    // photo.png -> photo-card.jpg, always jpeg whatever the original was
+    public String filenameFor(String original) {
+        int dot = original.lastIndexOf('.');
+        String base = dot > 0 ? original.substring(0, dot) : original;
+        return base + "-" + suffix + ".jpg";
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean crop() {
+        return crop;
+    }
+}
@@ -0,0 +1,216 @@
+package edu.final_project.hot_properties.services.images;
+
+import edu.final_project.hot_properties.repositories.PropertyImageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// Background pipeline writing the {@link ImageVariant} copies of uploaded images.
+///
+/// Work runs on a small fixed pool with a bounded queue, so a burst of uploads cannot pile up
+/// unbounded work or memory. Images that do not fit in the backlog are simply left pending and
+/// picked up by the periodic sweep, which also covers anything lost to a restart. Until an
+/// image has its variants the pages keep serving the original.
+@Component
+public class ImageVariantGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantGenerator.class);
+
+    private final PropertyImageRepository propertyImageRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageStore imageStore;
+    private final int backlog;
+
+    private final ThreadPoolExecutor executor;
+    // queued or running, so the sweep does not submit the same image twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantGenerator(PropertyImageRepository propertyImageRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 ImageStore imageStore,
+                                 @Value("${property.image-variants.threads:2}") int threads,
+                                 @Value("${property.image-variants.backlog:100}") int backlog) {
+        this.propertyImageRepository = propertyImageRepository;
+        this.eventPublisher = eventPublisher;
+        this.imageStore = imageStore;
+        this.backlog = backlog;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(backlog), runnable -> {
+            Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1); // page requests come first
+            return thread;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagesUploaded(ImagesUploadedEvent event) {
+        submit(propertyImageRepository.findPendingVariantsByPropertyId(event.propertyId()));
+    }
+
+    @Scheduled(cron = "${property.image-variants.sweep-cron:0 * * * * *}")
+    public void sweep() {
+        submit(propertyImageRepository.findPendingVariants(PageRequest.of(0, backlog)));
+    }
+
+    private void submit(List<PendingImage> images) {
+        for (PendingImage image : images) {
+            if (!inFlight.add(image.id())) {
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        generate(image);
+                    } finally {
+                        inFlight.remove(image.id());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(image.id());
+                logger.info("Image variant backlog is full, image {} is left for the next sweep.", image.id());
+                return;
+            }
+        }
+    }
+
+    private void generate(PendingImage image) {
+        Map<ImageVariant, String> names = new EnumMap<>(ImageVariant.class);
+        try {
+            BufferedImage original = null;
+            for (ImageVariant variant : ImageVariant.values()) {
+                String name = variant.filenameFor(image.imageFilename());
+                Path target = imageStore.resolve(name);
+                // another listing using the same photo may have written it already
+                if (!Files.exists(target)) {
+                    if (original == null) {
+                        original = ImageIO.read(imageStore.resolve(image.imageFilename()).toFile());
+                    }
+                    if (original == null) {
+                        break;
+                    }
+                    // written aside and moved in, two listings sharing the photo may race here
+                    Path temp = target.resolveSibling(".variant-" + UUID.randomUUID());
+                    try {
+                        ImageIO.write(resize(original, variant), "jpg", temp.toFile());
+                        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+                names.put(variant, name);
+            }
+            if (names.size() < ImageVariant.values().length) {
+                // a format ImageIO cannot decode (webp, heic...), the original is served as every variant
+                logger.info("No decoder for image {} ({}), keeping the original.", image.id(), image.imageFilename());
+                for (ImageVariant variant : ImageVariant.values()) {
+                    names.put(variant, image.imageFilename());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // missing or corrupt file, left pending so the sweep retries it
+            logger.warn("Failed to generate variants for image {}: {}", image.id(), e.getMessage());
+            return;
+        }
+
+        int updated = propertyImageRepository.updateVariants(image.id(), names.get(ImageVariant.THUMBNAIL),
+                names.get(ImageVariant.CARD), names.get(ImageVariant.GALLERY));
+        if (updated == 0) {
+            // the image was deleted while it was being resized, its blob may have no other user
+            imageStore.release(image.contentHash(), image.imageFilename());
+            return;
+        }
+        eventPublisher.publishEvent(new ImageVariantsReadyEvent(image.propertyId()));
+    }
+
+    static BufferedImage resize(BufferedImage source, ImageVariant variant) {
+        int srcW = source.getWidth();
+        int srcH = source.getHeight();
+        int targetW;
+        int targetH;
+        int cropX = 0;
+        int cropY = 0;
+        int cropW = srcW;
+        int cropH = srcH;
+        if (variant.crop()) {
+            // fill the box, cutting the overflow evenly from both sides
+            targetW = variant.width();
+            targetH = variant.height();
+            double scale = Math.max((double) targetW / srcW, (double) targetH / srcH);
+            cropW = Math.min(srcW, (int) Math.round(targetW / scale));
+            cropH = Math.min(srcH, (int) Math.round(targetH / scale));
+            cropX = (srcW - cropW) / 2;
+            cropY = (srcH - cropH) / 2;
+        } else {
+            double scale = Math.min(1.0, Math.min((double) variant.width() / srcW, (double) variant.height() / srcH));
+            targetW = Math.max(1, (int) Math.round(srcW * scale));
+            targetH = Math.max(1, (int) Math.round(srcH * scale));
+        }
+
+        BufferedImage current = toRgb(source.getSubimage(cropX, cropY, cropW, cropH));
+        // halving steps first: one bilinear pass over a large reduction skips most source pixels
+        while (current.getWidth() / 2 >= targetW && current.getHeight() / 2 >= targetH) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetW || current.getHeight() != targetH) {
+            current = draw(current, targetW, targetH);
+        }
+        return current;
+    }
+
+    // jpeg has no alpha, transparent areas become white
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        return draw(image, image.getWidth(), image.getHeight());
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow(); // pending work stays pending in the database
+    }
+}
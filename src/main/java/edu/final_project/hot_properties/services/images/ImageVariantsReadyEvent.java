@@ -0,0 +1,6 @@
+package edu.final_project.hot_properties.services.images;
+
+/// Published when a listing's images got their resized variants, so cached cards and pages
+/// still pointing at the originals can be dropped.
+public record ImageVariantsReadyEvent(Long propertyId) {
+}
@@ -0,0 +1,9 @@
+package edu.final_project.hot_properties.services.images;
+
+import java.util.List;
+
+/// Published when image rows are deleted. The files are released once the delete has
+/// committed, so a rolled back delete never loses a photo. `listingDeleted` also drops the
+/// listing's pre-blob-store upload folder.
+public record ImagesReleasedEvent(Long propertyId, List<ImageStore.StoredImage> images, boolean listingDeleted) {
+}
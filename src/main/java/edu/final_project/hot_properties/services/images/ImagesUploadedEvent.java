@@ -0,0 +1,6 @@
+package edu.final_project.hot_properties.services.images;
+
+/// Published when new images are stored for a listing. Variants are generated once the
+/// upload has committed, so the request never waits on resizing.
+public record ImagesUploadedEvent(Long propertyId) {
+}
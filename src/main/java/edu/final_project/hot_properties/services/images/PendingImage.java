@@ -0,0 +1,5 @@
+package edu.final_project.hot_properties.services.images;
+
+// an uploaded image still waiting for its resized variants
+public record PendingImage(Long id, Long propertyId, String imageFilename, String contentHash) {
+}
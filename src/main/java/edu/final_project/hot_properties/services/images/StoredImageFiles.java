@@ -0,0 +1,6 @@
+package edu.final_project.hot_properties.services.images;
+
+// the blob files one image row points at, checked by the reconciler
+public record StoredImageFiles(Long id, String imageFilename, String thumbnailFilename, String cardFilename,
+                               String galleryFilename) {
+}
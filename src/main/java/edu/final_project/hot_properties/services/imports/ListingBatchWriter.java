@@ -0,0 +1,114 @@
+package edu.final_project.hot_properties.services.imports;
+
+import edu.final_project.hot_properties.services.images.ImageStore;
+import edu.final_project.hot_properties.services.images.ImagesUploadedEvent;
+import edu.final_project.hot_properties.services.search.ListingChangedEvent;
+import edu.final_project.hot_properties.services.search.ListingRow;
+import edu.final_project.hot_properties.services.search.ListingText;
+import edu.final_project.hot_properties.services.search.ListingsImportedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Inserts a batch of validated listings and their image rows in one transaction, as JDBC
+/// batches. Property ids are generated by the database (IDENTITY), which keeps Hibernate from
+/// batching inserts, hence plain JDBC; titles are unique, so the new ids are read back by title.
+@Component
+public class ListingBatchWriter {
+
+    private static final String INSERT_PROPERTY = "INSERT INTO properties (title, price, description, location, " +
+            "zip_code, size, latitude, longitude, agent_id, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_IMAGE =
+            "INSERT INTO property_images (property_id, image_filename, content_hash) VALUES (?, ?, ?)";
+    // first photo of each new listing is its cover, as addPropertyFromDto does
+    private static final String SET_COVERS = "UPDATE properties p SET cover_image_id = " +
+            "(SELECT MIN(i.id) FROM property_images i WHERE i.property_id = p.id) WHERE p.id IN (:ids)";
+
+    public record Listing(long number, String title, Double price, String description, String location,
+                          String zipCode, Integer size, Double latitude, Double longitude, Long agentId,
+                          List<ImageStore.StoredImage> images) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public ListingBatchWriter(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                              ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /// Writes the whole batch or nothing. Returns the number of image rows written.
+    public int write(List<Listing> listings) {
+        if (listings.isEmpty()) {
+            return 0;
+        }
+        Integer images = transactionTemplate.execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(INSERT_PROPERTY, listings, listings.size(), (ps, listing) -> {
+                ps.setString(1, listing.title());
+                ps.setDouble(2, listing.price());
+                ps.setString(3, listing.description());
+                ps.setString(4, listing.location());
+                ps.setString(5, listing.zipCode());
+                ps.setInt(6, listing.size());
+                ps.setObject(7, listing.latitude(), Types.DOUBLE);
+                ps.setObject(8, listing.longitude(), Types.DOUBLE);
+                ps.setLong(9, listing.agentId());
+                ps.setTimestamp(10, now);
+            });
+
+            List<String> titles = listings.stream().map(Listing::title).toList();
+            Map<String, Long> ids = new HashMap<>();
+            namedJdbcTemplate.query("SELECT id, title FROM properties WHERE title IN (:titles)",
+                    new MapSqlParameterSource("titles", titles),
+                    rs -> {
+                        ids.put(rs.getString("title"), rs.getLong("id"));
+                    });
+
+            List<Object[]> imageRows = new ArrayList<>();
+            for (Listing listing : listings) {
+                Long id = ids.get(listing.title());
+                for (ImageStore.StoredImage image : listing.images()) {
+                    imageRows.add(new Object[]{id, image.filename(), image.contentHash()});
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, imageRows);
+            if (!imageRows.isEmpty()) {
+                namedJdbcTemplate.update(SET_COVERS, new MapSqlParameterSource("ids", ids.values()));
+            }
+
+            // delivered after commit, the indexes take the batch in one update
+            List<ListingChangedEvent> created = new ArrayList<>(listings.size());
+            for (Listing listing : listings) {
+                Long id = ids.get(listing.title());
+                created.add(new ListingChangedEvent(id, null,
+                        new ListingRow(id, listing.price(), listing.size(), listing.zipCode(), listing.latitude(),
+                                listing.longitude(), 0, 0L),
+                        new ListingText(id, listing.title(), listing.description(), listing.location())));
+                if (!listing.images().isEmpty()) {
+                    eventPublisher.publishEvent(new ImagesUploadedEvent(id));
+                }
+            }
+            eventPublisher.publishEvent(new ListingsImportedEvent(created));
+            return imageRows.size();
+        });
+        return images != null ? images : 0;
+    }
+}
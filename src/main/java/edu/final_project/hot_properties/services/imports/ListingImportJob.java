@@ -0,0 +1,115 @@
+package edu.final_project.hot_properties.services.imports;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Progress of one bulk import, updated by the import thread and read by the admin endpoint.
+public class ListingImportJob {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    // enough to fix a file, without a bad file of thousands of rows filling the heap
+    private static final int MAX_ERRORS = 200;
+
+    private final String id;
+    private final String filename;
+    private final Instant createdAt = Instant.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong images = new AtomicLong();
+    private final AtomicLong batchesCommitted = new AtomicLong();
+    private final AtomicLong batchesFailed = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    ListingImportJob(String id, String filename) {
+        this.id = id;
+        this.filename = filename;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    void started() {
+        status = Status.RUNNING;
+    }
+
+    void finished() {
+        status = Status.DONE;
+        finishedAt = Instant.now();
+    }
+
+    void failed(String message) {
+        failure = message;
+        status = Status.FAILED;
+        finishedAt = Instant.now();
+    }
+
+    void read(int count) {
+        read.addAndGet(count);
+    }
+
+    void rejected(long record, String message) {
+        rejected.incrementAndGet();
+        error("Record " + record + ": " + message);
+    }
+
+    void committed(int listings, int imageCount) {
+        imported.addAndGet(listings);
+        images.addAndGet(imageCount);
+        batchesCommitted.incrementAndGet();
+    }
+
+    void batchFailed(long firstRecord, long lastRecord, int listings, String message) {
+        rejected.addAndGet(listings);
+        batchesFailed.incrementAndGet();
+        error("Records " + firstRecord + "-" + lastRecord + " not imported: " + message);
+    }
+
+    private void error(String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("id", id);
+        snapshot.put("file", filename);
+        snapshot.put("status", status);
+        snapshot.put("createdAt", createdAt);
+        snapshot.put("finishedAt", finishedAt);
+        snapshot.put("read", read.get());
+        snapshot.put("imported", imported.get());
+        snapshot.put("rejected", rejected.get());
+        snapshot.put("images", images.get());
+        snapshot.put("batchesCommitted", batchesCommitted.get());
+        snapshot.put("batchesFailed", batchesFailed.get());
+        if (failure != null) {
+            snapshot.put("failure", failure);
+        }
+        synchronized (errors) {
+            snapshot.put("errors", new ArrayList<>(errors));
+        }
+        return snapshot;
+    }
+}
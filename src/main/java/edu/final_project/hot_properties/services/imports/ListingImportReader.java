@@ -0,0 +1,187 @@
+package edu.final_project.hot_properties.services.imports;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/// Reads an import file one listing at a time, so a file of any size is never held in memory.
+///
+/// CSV needs a header row naming the columns (`title, price, description, location, zip_code,
+/// size, agent_email, image_folder`, in any order); fields may be quoted, with embedded commas,
+/// line breaks and doubled quotes. JSON is an array of objects with the same keys, either
+/// snake_case or camelCase.
+public abstract class ListingImportReader implements Closeable {
+
+    public enum Format {
+        CSV, JSON;
+
+        public static Format of(String filename) {
+            String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".json")) {
+                return JSON;
+            }
+            throw new IllegalArgumentException("Import files must be .csv or .json");
+        }
+    }
+
+    protected long count;
+
+    public static ListingImportReader open(Path file, Format format) throws IOException {
+        BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        try {
+            return format == Format.CSV ? new Csv(in) : new Json(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /// The next listing, or null at the end of the file.
+    public abstract ListingImportRow next() throws IOException;
+
+    protected ListingImportRow row(Map<String, String> fields) {
+        return new ListingImportRow(++count, fields.get("title"), fields.get("price"), fields.get("description"),
+                fields.get("location"), fields.get("zip_code"), fields.get("size"), fields.get("agent_email"),
+                fields.get("image_folder"));
+    }
+
+    // zipCode, Zip Code and zip_code all name the same column
+    static String key(String name) {
+        return name.trim().replaceAll("([a-z])([A-Z])", "$1_$2").replaceAll("[\\s-]+", "_").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Csv extends ListingImportReader {
+
+        private final BufferedReader in;
+        private final List<String> header;
+
+        Csv(BufferedReader in) throws IOException {
+            this.in = in;
+            List<String> names = record();
+            if (names == null) {
+                throw new IOException("The CSV file is empty, a header row is required");
+            }
+            this.header = new ArrayList<>();
+            for (String name : names) {
+                header.add(key(name.replace("\uFEFF", ""))); // spreadsheet exports start with a BOM
+            }
+        }
+
+        @Override
+        public ListingImportRow next() throws IOException {
+            List<String> values;
+            do {
+                values = record();
+                if (values == null) {
+                    return null;
+                }
+            } while (values.size() == 1 && values.get(0).isBlank()); // blank line
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            return row(fields);
+        }
+
+        // one record, which may span lines inside quotes; null at the end of the input
+        private List<String> record() throws IOException {
+            int c = in.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field in CSV record " + (count + 1));
+                    }
+                    if (c == '"') {
+                        in.mark(1);
+                        int nextChar = in.read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            in.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+            values.add(field.toString());
+            return values;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class Json extends ListingImportReader {
+
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+
+        private final JsonParser parser;
+
+        Json(BufferedReader in) throws IOException {
+            this.parser = MAPPER.getFactory().createParser(in);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.close();
+                throw new IOException("The JSON file must hold an array of listings");
+            }
+        }
+
+        @Override
+        public ListingImportRow next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a listing object at record " + (count + 1));
+            }
+            JsonNode node = parser.readValueAsTree(); // just this listing
+            Map<String, String> fields = new HashMap<>();
+            node.fields().forEachRemaining(field -> {
+                JsonNode value = field.getValue();
+                fields.put(key(field.getKey()), value.isNull() ? null : value.asText());
+            });
+            return row(fields);
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package edu.final_project.hot_properties.services.imports;
+
+// one listing as read from an import file; number is the record's position in the file
+public record ListingImportRow(long number, String title, String price, String description, String location,
+                               String zipCode, String size, String agentEmail, String imageFolder) {
+}
@@ -0,0 +1,336 @@
+package edu.final_project.hot_properties.services.imports;
+
+import edu.final_project.hot_properties.dtos.AddPropertyDto;
+import edu.final_project.hot_properties.entities.RoleEnum;
+import edu.final_project.hot_properties.entities.User;
+import edu.final_project.hot_properties.repositories.UserRepository;
+import edu.final_project.hot_properties.services.geo.GeoPoint;
+import edu.final_project.hot_properties.services.geo.ZipCentroids;
+import edu.final_project.hot_properties.services.images.ImageStore;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// Bulk listing import for onboarding a brokerage: a CSV or JSON file of listings, each naming
+/// a folder of photos under `property.import.dir`.
+///
+/// The file is streamed in batches. Each batch is validated, its photos are hashed into the
+/// {@link ImageStore} in parallel, and its rows are written by {@link ListingBatchWriter} in
+/// their own transaction, so a failed batch loses only its own rows. Imports run one at a time
+/// in the background; their progress is kept in a {@link ListingImportJob}.
+@Component
+public class ListingImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingImporter.class);
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("webp", "jpg", "jpeg", "png", "gif");
+    private static final int MAX_IMAGES_PER_LISTING = 50;
+    private static final int KEPT_JOBS = 20;
+
+    private final ListingBatchWriter batchWriter;
+    private final ImageStore imageStore;
+    private final UserRepository userRepository;
+    private final ZipCentroids zipCentroids;
+    private final Validator validator;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final Path importDir;
+    private final int batchSize;
+
+    private final ThreadPoolExecutor jobExecutor;
+    private final ThreadPoolExecutor imageExecutor;
+    private final LinkedHashMap<String, ListingImportJob> jobs = new LinkedHashMap<>();
+
+    public ListingImporter(ListingBatchWriter batchWriter, ImageStore imageStore, UserRepository userRepository,
+                           ZipCentroids zipCentroids, Validator validator, NamedParameterJdbcTemplate namedJdbcTemplate,
+                           @Value("${property.import.dir:imports/}") String importDir,
+                           @Value("${property.import.batch-size:200}") int batchSize,
+                           @Value("${property.import.image-threads:4}") int imageThreads) {
+        this.batchWriter = batchWriter;
+        this.imageStore = imageStore;
+        this.userRepository = userRepository;
+        this.zipCentroids = zipCentroids;
+        this.validator = validator;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.importDir = Paths.get(System.getProperty("user.dir"), importDir).normalize();
+        this.batchSize = batchSize;
+        this.jobExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> daemon(runnable, "listing-import"));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.imageExecutor = new ThreadPoolExecutor(imageThreads, imageThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> daemon(runnable, "import-images-" + threadCount.incrementAndGet()));
+        this.imageExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /// Copies the uploaded file aside (the request's copy is gone once it returns) and queues
+    /// the import.
+    public ListingImportJob submit(InputStream content, String filename) throws IOException {
+        ListingImportReader.Format format = ListingImportReader.Format.of(filename);
+        Files.createDirectories(importDir);
+        ListingImportJob job = new ListingImportJob(UUID.randomUUID().toString(), filename);
+        Path file = importDir.resolve(".import-" + job.getId());
+        Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            // oldest finished jobs make room, queued and running ones are always kept
+            Iterator<ListingImportJob> oldest = jobs.values().iterator();
+            while (jobs.size() > KEPT_JOBS && oldest.hasNext()) {
+                if (oldest.next().isFinished()) {
+                    oldest.remove();
+                }
+            }
+        }
+        jobExecutor.execute(() -> {
+            try {
+                run(job, file, format);
+            } finally {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete import file {}: {}", file, e.getMessage());
+                }
+            }
+        });
+        return job;
+    }
+
+    public Optional<ListingImportJob> job(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    public List<ListingImportJob> jobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    private void run(ListingImportJob job, Path file, ListingImportReader.Format format) {
+        job.started();
+        logger.info("Listing import {} started ({}).", job.getId(), format);
+        Map<String, Long> agentIds = new HashMap<>();
+        Set<String> seenTitles = new HashSet<>(); // duplicates within the file
+        try (ListingImportReader reader = ListingImportReader.open(file, format)) {
+            List<ListingImportRow> batch = new ArrayList<>(batchSize);
+            ListingImportRow row;
+            while ((row = reader.next()) != null) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    importBatch(job, batch, agentIds, seenTitles);
+                    batch.clear();
+                }
+            }
+            importBatch(job, batch, agentIds, seenTitles);
+            job.finished();
+            logger.info("Listing import {} finished: {}", job.getId(), job.snapshot());
+        } catch (IOException | RuntimeException e) {
+            // batches committed so far stay imported
+            job.failed(e.getMessage());
+            logger.warn("Listing import {} stopped: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void importBatch(ListingImportJob job, List<ListingImportRow> rows, Map<String, Long> agentIds,
+                             Set<String> seenTitles) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        job.read(rows.size());
+
+        // validation, with one query for titles already listed
+        Set<String> existingTitles = existingTitles(rows.stream().map(ListingImportRow::title).toList());
+        List<ListingImportRow> valid = new ArrayList<>();
+        List<AddPropertyDto> values = new ArrayList<>();
+        List<Long> agents = new ArrayList<>();
+        for (ListingImportRow row : rows) {
+            AddPropertyDto dto = new AddPropertyDto(trim(row.title()), parseDouble(row.price()), trim(row.location()),
+                    trim(row.zipCode()), parseInt(row.size()), trim(row.description()));
+            String problem = problemWith(row, dto);
+            Long agentId = null;
+            if (problem == null) {
+                agentId = agentId(row.agentEmail(), agentIds);
+                if (agentId == null) {
+                    problem = "no agent with email " + row.agentEmail();
+                } else if (existingTitles.contains(dto.getTitle()) || !seenTitles.add(dto.getTitle())) {
+                    problem = "a listing titled \"" + dto.getTitle() + "\" already exists";
+                }
+            }
+            if (problem != null) {
+                job.rejected(row.number(), problem);
+                continue;
+            }
+            valid.add(row);
+            values.add(dto);
+            agents.add(agentId);
+        }
+
+        // photos of every listing in the batch at once, spread over the image pool
+        List<Future<List<ImageStore.StoredImage>>> pending = new ArrayList<>();
+        for (ListingImportRow row : valid) {
+            pending.add(imageExecutor.submit(() -> storeImages(row.imageFolder())));
+        }
+        List<ListingBatchWriter.Listing> listings = new ArrayList<>();
+        for (int i = 0; i < valid.size(); i++) {
+            ListingImportRow row = valid.get(i);
+            List<ImageStore.StoredImage> images;
+            try {
+                images = pending.get(i).get();
+            } catch (ExecutionException e) {
+                job.rejected(row.number(), "images could not be stored: " + e.getCause().getMessage());
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted");
+            }
+            AddPropertyDto dto = values.get(i);
+            GeoPoint point = zipCentroids.find(dto.getZipCode());
+            listings.add(new ListingBatchWriter.Listing(row.number(), dto.getTitle(), dto.getPrice(),
+                    dto.getDescription(), dto.getLocation(), dto.getZipCode(), dto.getSize(),
+                    point != null ? point.latitude() : null, point != null ? point.longitude() : null,
+                    agents.get(i), images));
+        }
+
+        try {
+            int images = batchWriter.write(listings);
+            job.committed(listings.size(), images);
+        } catch (DataAccessException e) {
+            // the photos already stored are unreferenced now, the reconciler collects them
+            job.batchFailed(rows.get(0).number(), rows.get(rows.size() - 1).number(), listings.size(),
+                    e.getMostSpecificCause().getMessage());
+            logger.warn("Listing import {}: batch failed: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private String problemWith(ListingImportRow row, AddPropertyDto dto) {
+        if (row.price() != null && !row.price().isBlank() && dto.getPrice() == null) {
+            return "price is not a number";
+        }
+        if (row.size() != null && !row.size().isBlank() && dto.getSize() == null) {
+            return "size is not a whole number";
+        }
+        // the same rules as the add listing form
+        for (ConstraintViolation<AddPropertyDto> violation : validator.validate(dto)) {
+            return violation.getMessage();
+        }
+        return null;
+    }
+
+    private Set<String> existingTitles(Collection<String> titles) {
+        Set<String> existing = new HashSet<>();
+        List<String> present = titles.stream().map(ListingImporter::trim).filter(t -> t != null && !t.isEmpty()).toList();
+        if (!present.isEmpty()) {
+            namedJdbcTemplate.query("SELECT title FROM properties WHERE title IN (:titles)",
+                    new MapSqlParameterSource("titles", present),
+                    rs -> {
+                        existing.add(rs.getString("title"));
+                    });
+        }
+        return existing;
+    }
+
+    // looked up once per import, rows of one brokerage share a few agents
+    private Long agentId(String email, Map<String, Long> agentIds) {
+        String key = trim(email);
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        return agentIds.computeIfAbsent(key.toLowerCase(Locale.ROOT), k -> userRepository.findByEmail(key)
+                .filter(user -> RoleEnum.AGENT.name().equals(user.getRole().getName()))
+                .map(User::getId)
+                .orElse(null));
+    }
+
+    // the folder's photos in name order; a listing without a folder is imported without photos
+    private List<ImageStore.StoredImage> storeImages(String folder) throws IOException {
+        List<ImageStore.StoredImage> stored = new ArrayList<>();
+        String name = trim(folder);
+        if (name == null || name.isEmpty()) {
+            return stored;
+        }
+        Path dir = importDir.resolve(name).normalize();
+        if (!dir.startsWith(importDir) || !Files.isDirectory(dir)) {
+            throw new IOException("image folder " + name + " not found");
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                String filename = entry.getFileName().toString();
+                int dot = filename.lastIndexOf('.');
+                if (Files.isRegularFile(entry) && dot > 0
+                        && IMAGE_EXTENSIONS.contains(filename.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+                    files.add(entry);
+                }
+            }
+        }
+        files.sort(null);
+        for (Path file : files.subList(0, Math.min(files.size(), MAX_IMAGES_PER_LISTING))) {
+            stored.add(imageStore.adopt(file)); // hashed, and linked rather than copied where possible
+        }
+        return stored;
+    }
+
+    private static String trim(String value) {
+        return value != null ? value.trim() : null;
+    }
+
+    private static Double parseDouble(String value) {
+        try {
+            return value != null && !value.isBlank() ? Double.valueOf(value.trim().replace(",", "")) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseInt(String value) {
+        try {
+            return value != null && !value.isBlank() ? Integer.valueOf(value.trim().replace(",", "")) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        imageExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,226 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.dtos.PropertyCard;
+import edu.final_project.hot_properties.dtos.PropertyPage;
+import edu.final_project.hot_properties.services.images.ImageVariantsReadyEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/// Bounded LRU + TTL cache of browse result pages, keyed by the normalized query.
+///
+/// Invalidation is driven by {@link ListingChangedEvent}: an entry is dropped only when the
+/// changed listing could count towards its results or facets before or after the change, or
+/// when the listing is on the cached page (its card may have changed). Keyword queries are
+/// dropped on any change, since re-running the text match per entry would cost more than the
+/// query itself.
+///
+/// Misses go through a {@link SingleFlight}, so a burst of identical queries runs the
+/// underlying search once and every caller gets that result.
+@Component
+public class BrowseResultCache {
+
+    public record Key(ListingQuery query, String cursor, int pageSize) {
+    }
+
+    private record Entry(PropertyPage page, Set<Long> ids, long createdAt) {
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<Key, Entry> entries;
+    private final SingleFlight<Key, PropertyPage> loads = new SingleFlight<>();
+
+    // bumped on every invalidation so a page computed before a write is never stored after it
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public BrowseResultCache(@Value("${property.browse-cache.max-entries:500}") int maxEntries,
+                             @Value("${property.browse-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > BrowseResultCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public PropertyPage getOrLoad(Key key, Supplier<PropertyPage> loader) {
+        PropertyPage cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.execute(key, () -> {
+            long computedAt = generation();
+            PropertyPage page = loader.get();
+            put(key, page, computedAt);
+            return page;
+        });
+    }
+
+    public PropertyPage get(Key key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.createdAt() > ttlMillis) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.page();
+        }
+    }
+
+    // read before computing a page and hand it back to put()
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(Key key, PropertyPage page, long computedAtGeneration) {
+        Set<Long> ids = new HashSet<>();
+        for (PropertyCard card : page.properties()) {
+            ids.add(card.id());
+        }
+        synchronized (entries) {
+            if (generation.get() != computedAtGeneration) {
+                return; // a write landed while this page was being computed
+            }
+            entries.put(key, new Entry(page, ids, System.currentTimeMillis()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10) // indexes first, caches after them
+    public void onListingChanged(ListingChangedEvent event) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> e = it.next();
+                ListingQuery query = e.getKey().query();
+                if (query.text() != null
+                        || e.getValue().ids().contains(event.propertyId())
+                        || affects(query, event.before())
+                        || affects(query, event.after())) {
+                    it.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // hundreds of new listings at once would invalidate nearly every page anyway
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onListingsImported(ListingsImportedEvent event) {
+        clear();
+    }
+
+    // only the popularity order depends on the counter, other entries are left alone
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onFavoriteCountChanged(FavoriteCountChangedEvent event) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> e = it.next();
+                if (ListingQuery.SORT_POPULAR.equals(e.getKey().query().sortOrder())
+                        || e.getValue().ids().contains(event.propertyId())) {
+                    it.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // the cards now point at the card-size variant, entries showing the listing are dropped
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onImageVariantsReady(ImageVariantsReadyEvent event) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().getValue().ids().contains(event.propertyId())) {
+                    it.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("loads", loads.executions());
+        stats.put("coalescedLoads", loads.coalesced());
+        return stats;
+    }
+
+    // a listing affects an entry's results when it passes every filter, and its facet counts
+    // when it misses at most one of them (facets leave out their own dimension)
+    private static boolean affects(ListingQuery query, ListingRow row) {
+        if (row == null) {
+            return false;
+        }
+        // the area bounds the facets as well as the results
+        if (query.area() != null && !query.area().contains(row.latitude(), row.longitude())) {
+            return false;
+        }
+        int misses = 0;
+        if (query.zipCode() != null && (row.zipCode() == null || !query.zipCode().equals(row.zipCode().trim()))) {
+            misses++;
+        }
+        if (query.minSqft() != null && (row.size() == null || row.size() < query.minSqft())) {
+            misses++;
+        }
+        if ((query.minPrice() != null && (row.price() == null || row.price() < query.minPrice()))
+                || (query.maxPrice() != null && (row.price() == null || row.price() > query.maxPrice()))) {
+            misses++;
+        }
+        return misses <= 1;
+    }
+}
@@ -0,0 +1,6 @@
+package edu.final_project.hot_properties.services.search;
+
+/// Published when a buyer favorites or un-favorites a listing, after the stored
+/// favorites_count has been adjusted by delta. Only the popularity order depends on it.
+public record FavoriteCountChangedEvent(Long propertyId, int delta) {
+}
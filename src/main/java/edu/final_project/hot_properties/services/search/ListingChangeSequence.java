@@ -0,0 +1,46 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.services.images.ImageVariantsReadyEvent;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Global counter bumped after every committed listing, favorites or image variant change,
+/// used as the validator for pages that depend on the catalog as a whole (browse, similar homes).
+/// It starts from the boot time so a restart never hands out a value a client may have cached.
+@Component
+public class ListingChangeSequence {
+
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return sequence.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onListingChanged(ListingChangedEvent event) {
+        sequence.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onListingsImported(ListingsImportedEvent event) {
+        sequence.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onFavoriteCountChanged(FavoriteCountChangedEvent event) {
+        sequence.incrementAndGet();
+    }
+
+    // pages switch from the original images to the resized ones
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onImageVariantsReady(ImageVariantsReadyEvent event) {
+        sequence.incrementAndGet();
+    }
+}
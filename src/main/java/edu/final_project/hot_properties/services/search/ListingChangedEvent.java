@@ -0,0 +1,25 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.entities.Property;
+
+/// Published by the property services whenever a listing is created, edited or removed.
+/// before is null for a new listing, after and text are null for a deleted one.
+/// Listeners run after the surrounding transaction commits, so a rollback never reaches them.
+public record ListingChangedEvent(Long propertyId, ListingRow before, ListingRow after, ListingText text) {
+
+    public static ListingChangedEvent created(Property property) {
+        return new ListingChangedEvent(property.getId(), null, ListingRow.of(property), ListingText.of(property));
+    }
+
+    public static ListingChangedEvent updated(ListingRow before, Property property) {
+        return new ListingChangedEvent(property.getId(), before, ListingRow.of(property), ListingText.of(property));
+    }
+
+    public static ListingChangedEvent deleted(Property property) {
+        return new ListingChangedEvent(property.getId(), ListingRow.of(property), null, null);
+    }
+
+    public boolean isDelete() {
+        return after == null;
+    }
+}
@@ -0,0 +1,797 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.dtos.PropertyFacets;
+import edu.final_project.hot_properties.repositories.PropertyRepository;
+import edu.final_project.hot_properties.services.PropertyCursor;
+import edu.final_project.hot_properties.services.geo.GeoArea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Read-optimized, in-process index of listing ids used to answer browse filters without
+/// sending the catch-all filter query to MySQL.
+///
+/// Readers work on an immutable {@link Snapshot} of primitive arrays: listings ordered by id
+/// (newest first) give each one an ordinal, prices and sizes are kept sorted for binary
+/// search range scans, every zip code has a bitmap of ordinals and coordinates are bucketed
+/// into a fixed lat/lng grid for radius and bounding-box lookups. Writes are rare compared
+/// to browsing, so a listing write builds a fresh snapshot and swaps it in (copy-on-write);
+/// writes arriving while a build runs are folded into the next one. A favorite click only
+/// moves one listing within the popularity order and swaps in a copy sharing everything else.
+/// A full rebuild replays the writes that land while it reads the table, and one that fails
+/// at startup is retried until it succeeds.
+@Component
+public class ListingIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingIndex.class);
+
+    private final PropertyRepository propertyRepository;
+
+    // source rows for the next snapshot and the number of changes applied to them,
+    // only touched while holding rowsLock
+    private final Map<Long, ListingRow> rows = new HashMap<>();
+    private final Object rowsLock = new Object();
+    private long changes;
+
+    // writes applied while a rebuild reads the table, replayed onto what it read since the
+    // read may have missed their commits; null when no rebuild is running
+    private List<ListingChangedEvent> replay;
+
+    // serializes snapshot swaps, builds copy the rows while holding it;
+    // built is the number of changes the current snapshot contains
+    private final Object swapLock = new Object();
+    private long built;
+
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+    private volatile boolean ready = false;
+    private volatile boolean retryBuild = false;
+
+    public ListingIndex(PropertyRepository propertyRepository) {
+        this.propertyRepository = propertyRepository;
+    }
+
+    // called by StartupDataLoader once the seed data is in, before the application is ready
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // browsing falls back to the database queries until a retry builds the index
+            retryBuild = true;
+            logger.error("Failed to build listing index, retrying in the background: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${property.listing-index.retry-ms:30000}")
+    public void retryFailedBuild() {
+        if (!retryBuild) {
+            return;
+        }
+        try {
+            rebuild();
+            retryBuild = false;
+        } catch (RuntimeException e) {
+            logger.warn("Listing index still not built: {}", e.getMessage());
+        }
+    }
+
+    public void rebuild() {
+        synchronized (swapLock) {
+            synchronized (rowsLock) {
+                replay = new ArrayList<>();
+            }
+            List<ListingRow> all;
+            try {
+                all = propertyRepository.findAllListingRows();
+            } catch (RuntimeException e) {
+                synchronized (rowsLock) {
+                    replay = null;
+                }
+                throw e;
+            }
+            List<ListingRow> source;
+            synchronized (rowsLock) {
+                List<ListingChangedEvent> missed = replay;
+                replay = null;
+                rows.clear();
+                for (ListingRow row : all) {
+                    rows.put(row.id(), row);
+                }
+                // in the order they were applied, so the latest state of a listing wins
+                missed.forEach(this::apply);
+                built = ++changes;
+                source = new ArrayList<>(rows.values());
+            }
+            snapshot = Snapshot.build(source);
+            ready = true;
+            logger.info("Listing index built with {} listings.", source.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onListingChanged(ListingChangedEvent event) {
+        long change;
+        synchronized (rowsLock) {
+            apply(event);
+            change = ++changes;
+        }
+        publish(change);
+    }
+
+    // a whole import batch costs one snapshot build, not one per listing
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onListingsImported(ListingsImportedEvent event) {
+        long change;
+        synchronized (rowsLock) {
+            event.created().forEach(this::apply);
+            change = ++changes;
+        }
+        publish(change);
+    }
+
+    // callers hold rowsLock
+    private void apply(ListingChangedEvent event) {
+        if (replay != null) {
+            replay.add(event);
+        }
+        if (event.isDelete()) {
+            rows.remove(event.propertyId());
+        } else {
+            // the counter is tracked through FavoriteCountChangedEvent, an edit's copy may be stale
+            ListingRow current = rows.get(event.propertyId());
+            rows.put(event.propertyId(), current != null
+                    ? event.after().withFavoritesCount(current.favoritesCount())
+                    : event.after());
+        }
+    }
+
+    // returns once the snapshot contains the given change. Writers queued behind a running
+    // build find their change already picked up by the build after it, so a burst of writes
+    // costs a couple of builds rather than one each
+    private void publish(long change) {
+        synchronized (swapLock) {
+            if (built >= change) {
+                return;
+            }
+            List<ListingRow> source;
+            long upTo;
+            synchronized (rowsLock) {
+                source = new ArrayList<>(rows.values());
+                upTo = changes;
+            }
+            snapshot = Snapshot.build(source);
+            built = upTo;
+        }
+    }
+
+    // a click changes one counter, so the listing is moved within the popularity order of a
+    // copy of the snapshot instead of building a new one
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onFavoriteCountChanged(FavoriteCountChangedEvent event) {
+        synchronized (swapLock) {
+            int count;
+            synchronized (rowsLock) {
+                ListingRow row = rows.get(event.propertyId());
+                if (row == null) {
+                    return;
+                }
+                int current = row.favoritesCount() != null ? row.favoritesCount() : 0;
+                count = Math.max(0, current + event.delta());
+                rows.put(row.id(), row.withFavoritesCount(count));
+            }
+            // a listing the snapshot does not hold yet gets the new count from the rows on its next build
+            Snapshot s = snapshot;
+            int ord = s.ordinalOf(event.propertyId());
+            if (ord >= 0 && s.favorites[ord] != count) {
+                snapshot = s.withFavoritesCount(ord, count);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return snapshot.ids.length;
+    }
+
+    // ids for one page of results in display order, plus the cursor for the page after it.
+    // textScores holds the keyword matches (best first) or is null when there is no keyword query
+    public Page page(ListingQuery query, Map<Long, Double> textScores, PropertyCursor after, int limit) {
+        Snapshot s = snapshot;
+        BitSet matches = s.matching(query);
+        if (textScores != null) {
+            matches = Snapshot.intersect(matches, s.ordinalsOf(textScores.keySet()));
+        }
+
+        return switch (query.sortOrder()) {
+            case ListingQuery.SORT_PRICE_ASC -> s.pageByPrice(matches, after, limit, true);
+            case ListingQuery.SORT_PRICE_DESC -> s.pageByPrice(matches, after, limit, false);
+            case ListingQuery.SORT_POPULAR -> s.pageByPopularity(matches, after, limit);
+            case ListingQuery.SORT_RELEVANCE -> s.pageByScore(matches, textScores, after, limit);
+            default -> s.pageByIdDesc(matches, after, limit);
+        };
+    }
+
+    /// Facet counts for the whole result set of a query, in one pass over the listings.
+    public PropertyFacets facets(ListingQuery query, Map<Long, Double> textScores) {
+        Snapshot s = snapshot;
+        // keyword and area matches are not faceted, they only narrow what gets counted
+        BitSet scope = textScores != null ? s.ordinalsOf(textScores.keySet()) : null;
+        if (query.area() != null) {
+            scope = Snapshot.intersect(scope, s.within(query.area()));
+        }
+        return s.facets(query, scope);
+    }
+
+    /// Listings most like the given one by price, size, price per square foot and location,
+    /// closest first. Empty when the listing is not indexed.
+    public List<Long> similarTo(Long id, int k) {
+        Snapshot s = snapshot;
+        int ord = s.ordinalOf(id);
+        if (ord < 0) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(k);
+        for (int neighbour : NearestNeighbours.search(s.features, FEATURES, ord, k)) {
+            ids.add(s.ids[neighbour]);
+        }
+        return ids;
+    }
+
+    // version of the listing as last indexed, null when it is not indexed
+    public Long versionOf(Long id) {
+        Snapshot s = snapshot;
+        int ord = s.ordinalOf(id);
+        return ord >= 0 ? s.versions[ord] : null;
+    }
+
+    public record Page(List<Long> ids, PropertyCursor next) {
+    }
+
+    // band edges for the facet counts
+    private static final double[] PRICE_BANDS = {0, 250_000, 500_000, 750_000, 1_000_000, 2_000_000};
+    private static final String[] PRICE_LABELS = {"Under $250k", "$250k - $500k", "$500k - $750k",
+            "$750k - $1M", "$1M - $2M", "$2M+"};
+    private static final double[] SIZE_BANDS = {0, 1_000, 2_000, 3_000, 5_000};
+    private static final String[] SIZE_LABELS = {"Under 1,000 sq. ft.", "1,000 - 2,000 sq. ft.",
+            "2,000 - 3,000 sq. ft.", "3,000 - 5,000 sq. ft.", "5,000+ sq. ft."};
+
+    // grid cell edge in degrees, about 3.5 miles north-south
+    private static final double CELL_DEGREES = 0.05;
+
+    // similarity vector: log price, log size, log price per sq ft, latitude, longitude
+    private static final int FEATURES = 5;
+
+    static final class Snapshot {
+
+        final long[] ids;            // ordinal -> id, newest (highest id) first
+        final long[] versions;       // ordinal -> listing version
+        final double[] prices;       // ordinal -> price
+        final int[] sizes;           // ordinal -> size
+        final String[] zips;         // ordinal -> zip code
+        final int[] byPrice;         // ordinals sorted by (price, id) ascending
+        final double[] sortedPrices; // prices[byPrice[i]]
+        final int[] bySize;          // ordinals sorted by size ascending
+        final int[] sortedSizes;     // sizes[bySize[i]]
+        final int[] favorites;       // ordinal -> favorites count
+        final int[] byPopularity;    // ordinals sorted by (favorites, id) descending
+        final Map<String, BitSet> zipBitmaps;
+        final double[] latitudes;    // ordinal -> latitude, NaN when the listing has no coordinates
+        final double[] longitudes;
+        final Map<Long, int[]> cells; // grid cell -> ordinals located in it
+        final float[] features;       // ordinal * FEATURES -> standardized similarity vector
+
+        private Snapshot(long[] ids, long[] versions, double[] prices, int[] sizes, String[] zips, int[] byPrice,
+                         double[] sortedPrices, int[] bySize, int[] sortedSizes, int[] favorites,
+                         int[] byPopularity, Map<String, BitSet> zipBitmaps,
+                         double[] latitudes, double[] longitudes, Map<Long, int[]> cells, float[] features) {
+            this.ids = ids;
+            this.versions = versions;
+            this.prices = prices;
+            this.sizes = sizes;
+            this.zips = zips;
+            this.byPrice = byPrice;
+            this.sortedPrices = sortedPrices;
+            this.bySize = bySize;
+            this.sortedSizes = sortedSizes;
+            this.favorites = favorites;
+            this.byPopularity = byPopularity;
+            this.zipBitmaps = zipBitmaps;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.cells = cells;
+            this.features = features;
+        }
+
+        static Snapshot build(Collection<ListingRow> source) {
+            List<ListingRow> ordered = new ArrayList<>(source);
+            ordered.sort((a, b) -> Long.compare(b.id(), a.id()));
+
+            int n = ordered.size();
+            long[] ids = new long[n];
+            long[] versions = new long[n];
+            double[] prices = new double[n];
+            int[] sizes = new int[n];
+            String[] zips = new String[n];
+            int[] favorites = new int[n];
+            Map<String, BitSet> zipBitmaps = new HashMap<>();
+            double[] latitudes = new double[n];
+            double[] longitudes = new double[n];
+            Map<Long, List<Integer>> cellLists = new HashMap<>();
+
+            for (int ord = 0; ord < n; ord++) {
+                ListingRow row = ordered.get(ord);
+                ids[ord] = row.id();
+                versions[ord] = row.version() != null ? row.version() : 0L;
+                // price and size are mandatory on Property, the defaults only guard legacy rows
+                prices[ord] = row.price() != null ? row.price() : 0d;
+                sizes[ord] = row.size() != null ? row.size() : 0;
+                favorites[ord] = row.favoritesCount() != null ? row.favoritesCount() : 0;
+                if (row.zipCode() != null) {
+                    zips[ord] = row.zipCode().trim();
+                    zipBitmaps.computeIfAbsent(zips[ord], z -> new BitSet(n)).set(ord);
+                }
+                if (row.latitude() != null && row.longitude() != null) {
+                    latitudes[ord] = row.latitude();
+                    longitudes[ord] = row.longitude();
+                    cellLists.computeIfAbsent(cellKey(cell(row.latitude()), cell(row.longitude())),
+                            c -> new ArrayList<>()).add(ord);
+                } else {
+                    latitudes[ord] = Double.NaN;
+                    longitudes[ord] = Double.NaN;
+                }
+            }
+
+            Map<Long, int[]> cells = new HashMap<>();
+            for (Map.Entry<Long, List<Integer>> entry : cellLists.entrySet()) {
+                cells.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+
+            int[] byPrice = sortedOrdinals(n, (a, b) -> {
+                int cmp = Double.compare(prices[a], prices[b]);
+                return cmp != 0 ? cmp : Long.compare(ids[a], ids[b]);
+            });
+            double[] sortedPrices = new double[n];
+            for (int i = 0; i < n; i++) {
+                sortedPrices[i] = prices[byPrice[i]];
+            }
+
+            int[] bySize = sortedOrdinals(n, (a, b) -> Integer.compare(sizes[a], sizes[b]));
+            int[] sortedSizes = new int[n];
+            for (int i = 0; i < n; i++) {
+                sortedSizes[i] = sizes[bySize[i]];
+            }
+
+            // ordinals are already newest first, so a stable sort keeps id descending within a count
+            int[] byPopularity = sortedOrdinals(n, (a, b) -> Integer.compare(favorites[b], favorites[a]));
+
+            return new Snapshot(ids, versions, prices, sizes, zips, byPrice, sortedPrices, bySize, sortedSizes, favorites,
+                    byPopularity, zipBitmaps, latitudes, longitudes, cells,
+                    features(prices, sizes, latitudes, longitudes));
+        }
+
+        // same snapshot with one listing's favorites count changed; only the counts and the
+        // popularity order are copied, the listing is taken out and put back at its new rank
+        Snapshot withFavoritesCount(int ord, int count) {
+            int n = byPopularity.length;
+            int from = popularityRank(byPopularity, n, favorites, ord, favorites[ord]);
+            int[] order = new int[n];
+            System.arraycopy(byPopularity, 0, order, 0, from);
+            System.arraycopy(byPopularity, from + 1, order, from, n - from - 1);
+
+            int[] counts = favorites.clone();
+            counts[ord] = count;
+            int to = popularityRank(order, n - 1, counts, ord, count);
+            System.arraycopy(order, to, order, to + 1, n - 1 - to);
+            order[to] = ord;
+
+            return new Snapshot(ids, versions, prices, sizes, zips, byPrice, sortedPrices, bySize, sortedSizes, counts,
+                    order, zipBitmaps, latitudes, longitudes, cells, features);
+        }
+
+        // first position in order[0, length) not ranked above (count, ord); the order is by count
+        // descending, then ordinal ascending (id descending)
+        private static int popularityRank(int[] order, int length, int[] counts, int ord, int count) {
+            int lo = 0, hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int o = order[mid];
+                if (counts[o] > count || (counts[o] == count && o < ord)) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        // each feature is shifted to mean 0 and scaled to unit variance so no unit dominates;
+        // a listing without coordinates sits at the mean location
+        private static float[] features(double[] prices, int[] sizes, double[] latitudes, double[] longitudes) {
+            int n = prices.length;
+            double[][] columns = new double[FEATURES][n];
+            for (int ord = 0; ord < n; ord++) {
+                double price = Math.max(prices[ord], 1);
+                double size = Math.max(sizes[ord], 1);
+                columns[0][ord] = Math.log(price);
+                columns[1][ord] = Math.log(size);
+                columns[2][ord] = Math.log(price / size);
+                columns[3][ord] = latitudes[ord];
+                columns[4][ord] = longitudes[ord];
+            }
+
+            float[] features = new float[n * FEATURES];
+            for (int f = 0; f < FEATURES; f++) {
+                double sum = 0, sumSq = 0;
+                int count = 0;
+                for (double v : columns[f]) {
+                    if (!Double.isNaN(v)) {
+                        sum += v;
+                        sumSq += v * v;
+                        count++;
+                    }
+                }
+                double mean = count > 0 ? sum / count : 0;
+                double std = count > 0 ? Math.sqrt(Math.max(sumSq / count - mean * mean, 0)) : 0;
+                for (int ord = 0; ord < n; ord++) {
+                    double v = columns[f][ord];
+                    features[ord * FEATURES + f] = Double.isNaN(v) || std == 0 ? 0f : (float) ((v - mean) / std);
+                }
+            }
+            return features;
+        }
+
+        private static int[] sortedOrdinals(int n, Comparator<Integer> order) {
+            Integer[] boxed = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                boxed[i] = i;
+            }
+            Arrays.sort(boxed, order);
+            int[] result = new int[n];
+            for (int i = 0; i < n; i++) {
+                result[i] = boxed[i];
+            }
+            return result;
+        }
+
+        // bitmap of ordinals passing every filter, null when there is no filter at all
+        BitSet matching(ListingQuery query) {
+            BitSet result = null;
+
+            if (query.zipCode() != null) {
+                BitSet zip = zipBitmaps.get(query.zipCode());
+                result = zip != null ? (BitSet) zip.clone() : new BitSet();
+            }
+
+            if (query.minPrice() != null || query.maxPrice() != null) {
+                int from = query.minPrice() != null ? lowerBound(sortedPrices, query.minPrice()) : 0;
+                int to = query.maxPrice() != null ? upperBound(sortedPrices, query.maxPrice()) : ids.length;
+                result = intersect(result, bitsFor(byPrice, from, to));
+            }
+
+            if (query.minSqft() != null) {
+                int from = lowerBound(sortedSizes, query.minSqft());
+                result = intersect(result, bitsFor(bySize, from, ids.length));
+            }
+
+            if (query.area() != null) {
+                result = intersect(result, within(query.area()));
+            }
+
+            return result;
+        }
+
+        // only the grid cells overlapping the area's bounding box are visited
+        BitSet within(GeoArea area) {
+            BitSet bits = new BitSet(ids.length);
+            long south = cell(area.south()), north = cell(area.north());
+            long west = cell(area.west()), east = cell(area.east());
+            if ((north - south + 1) * (east - west + 1) > cells.size()) {
+                // the box spans more cells than are occupied, walk the occupied ones instead
+                for (int[] ordinals : cells.values()) {
+                    collect(area, ordinals, bits);
+                }
+                return bits;
+            }
+            for (long row = south; row <= north; row++) {
+                for (long col = west; col <= east; col++) {
+                    int[] ordinals = cells.get(cellKey(row, col));
+                    if (ordinals != null) {
+                        collect(area, ordinals, bits);
+                    }
+                }
+            }
+            return bits;
+        }
+
+        private void collect(GeoArea area, int[] ordinals, BitSet bits) {
+            for (int ord : ordinals) {
+                if (area.contains(latitudes[ord], longitudes[ord])) {
+                    bits.set(ord);
+                }
+            }
+        }
+
+        private static long cell(double degrees) {
+            return (long) Math.floor(degrees / CELL_DEGREES);
+        }
+
+        private static long cellKey(long row, long col) {
+            return (row << 32) ^ (col & 0xffffffffL);
+        }
+
+        private BitSet bitsFor(int[] ordinals, int from, int to) {
+            BitSet bits = new BitSet(ids.length);
+            for (int i = from; i < to; i++) {
+                bits.set(ordinals[i]);
+            }
+            return bits;
+        }
+
+        int ordinalOf(long id) {
+            // ids are sorted descending
+            int lo = 0, hi = ids.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ids[mid] == id) return mid;
+                if (ids[mid] > id) lo = mid + 1;
+                else hi = mid - 1;
+            }
+            return -1;
+        }
+
+        BitSet ordinalsOf(Collection<Long> idSet) {
+            BitSet bits = new BitSet(ids.length);
+            for (Long id : idSet) {
+                int ord = ordinalOf(id);
+                if (ord >= 0) {
+                    bits.set(ord);
+                }
+            }
+            return bits;
+        }
+
+        static BitSet intersect(BitSet current, BitSet next) {
+            if (current == null) {
+                return next;
+            }
+            current.and(next);
+            return current;
+        }
+
+        Page pageByIdDesc(BitSet matches, PropertyCursor after, int limit) {
+            // ids are descending, so skip every ordinal whose id is >= the cursor id
+            int start = 0;
+            if (after != null) {
+                int lo = 0, hi = ids.length;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (ids[mid] >= after.id()) lo = mid + 1;
+                    else hi = mid;
+                }
+                start = lo;
+            }
+
+            List<Long> page = new ArrayList<>(limit);
+            for (int ord = next(matches, start); ord >= 0 && ord < ids.length; ord = next(matches, ord + 1)) {
+                if (page.size() == limit) {
+                    long lastId = page.get(page.size() - 1);
+                    return new Page(page, new PropertyCursor(ListingQuery.SORT_ID_DESC, null, lastId));
+                }
+                page.add(ids[ord]);
+            }
+            return new Page(page, null);
+        }
+
+        Page pageByPrice(BitSet matches, PropertyCursor after, int limit, boolean ascending) {
+            int n = byPrice.length;
+            int pos;
+            if (after == null) {
+                pos = ascending ? 0 : n - 1;
+            } else {
+                // first position strictly after the cursor (price, id) in ascending order
+                int lo = 0, hi = n;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (compareToCursor(byPrice[mid], after) <= 0) lo = mid + 1;
+                    else hi = mid;
+                }
+                if (ascending) {
+                    pos = lo;
+                } else {
+                    // walk back past rows equal to the cursor
+                    pos = lo - 1;
+                    while (pos >= 0 && compareToCursor(byPrice[pos], after) >= 0) pos--;
+                }
+            }
+
+            String sortOrder = ascending ? ListingQuery.SORT_PRICE_ASC : ListingQuery.SORT_PRICE_DESC;
+            List<Long> page = new ArrayList<>(limit);
+            int lastOrd = -1;
+            for (; pos >= 0 && pos < n; pos += ascending ? 1 : -1) {
+                int ord = byPrice[pos];
+                if (matches != null && !matches.get(ord)) {
+                    continue;
+                }
+                if (page.size() == limit) {
+                    return new Page(page, new PropertyCursor(sortOrder, prices[lastOrd], ids[lastOrd]));
+                }
+                page.add(ids[ord]);
+                lastOrd = ord;
+            }
+            return new Page(page, null);
+        }
+
+        Page pageByPopularity(BitSet matches, PropertyCursor after, int limit) {
+            int n = byPopularity.length;
+            int pos = 0;
+            if (after != null) {
+                // first position ranked below the cursor (count, id), both descending
+                int key = after.key() != null ? after.key().intValue() : 0;
+                int lo = 0, hi = n;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    int ord = byPopularity[mid];
+                    if (favorites[ord] > key || (favorites[ord] == key && ids[ord] >= after.id())) lo = mid + 1;
+                    else hi = mid;
+                }
+                pos = lo;
+            }
+
+            List<Long> page = new ArrayList<>(limit);
+            int lastOrd = -1;
+            for (; pos < n; pos++) {
+                int ord = byPopularity[pos];
+                if (matches != null && !matches.get(ord)) {
+                    continue;
+                }
+                if (page.size() == limit) {
+                    return new Page(page, new PropertyCursor(ListingQuery.SORT_POPULAR,
+                            (double) favorites[lastOrd], ids[lastOrd]));
+                }
+                page.add(ids[ord]);
+                lastOrd = ord;
+            }
+            return new Page(page, null);
+        }
+
+        // scores are already ordered best first, ties broken by newest id
+        Page pageByScore(BitSet matches, Map<Long, Double> scores, PropertyCursor after, int limit) {
+            List<Long> page = new ArrayList<>(limit);
+            double lastScore = 0;
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                long id = entry.getKey();
+                double score = entry.getValue();
+                if (after != null && after.key() != null) {
+                    int cmp = Double.compare(score, after.key());
+                    if (cmp > 0 || (cmp == 0 && id >= after.id())) {
+                        continue; // already shown on an earlier page
+                    }
+                }
+                int ord = ordinalOf(id);
+                if (ord < 0 || (matches != null && !matches.get(ord))) {
+                    continue;
+                }
+                if (page.size() == limit) {
+                    long lastId = page.get(page.size() - 1);
+                    return new Page(page, new PropertyCursor(ListingQuery.SORT_RELEVANCE, lastScore, lastId));
+                }
+                page.add(id);
+                lastScore = score;
+            }
+            return new Page(page, null);
+        }
+
+        // every listing is visited once; each dimension counts the listings passing all the
+        // other filters, so a selected zip or band does not hide its alternatives
+        PropertyFacets facets(ListingQuery query, BitSet scope) {
+            Map<String, Integer> zipCounts = new HashMap<>();
+            int[] priceCounts = new int[PRICE_BANDS.length];
+            int[] sizeCounts = new int[SIZE_BANDS.length];
+
+            for (int ord = 0; ord < ids.length; ord++) {
+                if (scope != null && !scope.get(ord)) {
+                    continue;
+                }
+                boolean zipOk = query.zipCode() == null || query.zipCode().equals(zips[ord]);
+                boolean priceOk = (query.minPrice() == null || prices[ord] >= query.minPrice())
+                        && (query.maxPrice() == null || prices[ord] <= query.maxPrice());
+                boolean sizeOk = query.minSqft() == null || sizes[ord] >= query.minSqft();
+
+                if (priceOk && sizeOk && zips[ord] != null) {
+                    zipCounts.merge(zips[ord], 1, Integer::sum);
+                }
+                if (zipOk && sizeOk) {
+                    priceCounts[band(PRICE_BANDS, prices[ord])]++;
+                }
+                if (zipOk && priceOk) {
+                    sizeCounts[band(SIZE_BANDS, sizes[ord])]++;
+                }
+            }
+
+            Map<String, Integer> zipFacets = new LinkedHashMap<>();
+            zipCounts.entrySet().stream()
+                    .sorted((a, b) -> {
+                        int cmp = Integer.compare(b.getValue(), a.getValue());
+                        return cmp != 0 ? cmp : a.getKey().compareTo(b.getKey());
+                    })
+                    .forEach(e -> zipFacets.put(e.getKey(), e.getValue()));
+
+            return new PropertyFacets(zipFacets,
+                    buckets(PRICE_BANDS, PRICE_LABELS, priceCounts),
+                    buckets(SIZE_BANDS, SIZE_LABELS, sizeCounts));
+        }
+
+        private static int band(double[] edges, double value) {
+            int band = 0;
+            while (band + 1 < edges.length && value >= edges[band + 1]) {
+                band++;
+            }
+            return band;
+        }
+
+        private static List<PropertyFacets.Bucket> buckets(double[] edges, String[] labels, int[] counts) {
+            List<PropertyFacets.Bucket> buckets = new ArrayList<>(edges.length);
+            for (int i = 0; i < edges.length; i++) {
+                Double to = i + 1 < edges.length ? edges[i + 1] : null;
+                buckets.add(new PropertyFacets.Bucket(labels[i], edges[i], to, counts[i]));
+            }
+            return buckets;
+        }
+
+        private int compareToCursor(int ord, PropertyCursor cursor) {
+            int cmp = Double.compare(prices[ord], cursor.key() != null ? cursor.key() : 0d);
+            return cmp != 0 ? cmp : Long.compare(ids[ord], cursor.id());
+        }
+
+        private static int next(BitSet matches, int from) {
+            return matches == null ? from : matches.nextSetBit(from);
+        }
+
+        // first index with value >= key
+        private static int lowerBound(double[] sorted, double key) {
+            int lo = 0, hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] < key) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        // first index with value > key
+        private static int upperBound(double[] sorted, double key) {
+            int lo = 0, hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] <= key) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private static int lowerBound(int[] sorted, int key) {
+            int lo = 0, hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] < key) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
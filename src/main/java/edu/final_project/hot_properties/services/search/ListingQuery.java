@@ -0,0 +1,14 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.services.geo.GeoArea;
+
+// validated, normalized browse criteria (nulls mean "no filter")
+public record ListingQuery(String text, String zipCode, Integer minSqft, Double minPrice, Double maxPrice,
+                           GeoArea area, String sortOrder) {
+
+    public static final String SORT_PRICE_ASC = "price_asc";
+    public static final String SORT_PRICE_DESC = "price_desc";
+    public static final String SORT_ID_DESC = "id_desc";
+    public static final String SORT_POPULAR = "popular";     // most favorited first
+    public static final String SORT_RELEVANCE = "relevance"; // only with a keyword query
+}
@@ -0,0 +1,18 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.entities.Property;
+
+// the handful of columns the in-memory indexes need, loaded without touching images/favorites
+public record ListingRow(Long id, Double price, Integer size, String zipCode, Double latitude, Double longitude,
+                         Integer favoritesCount, Long version) {
+
+    // the version is only current once the change has been flushed
+    public static ListingRow of(Property property) {
+        return new ListingRow(property.getId(), property.getPrice(), property.getSize(), property.getZipCode(),
+                property.getLatitude(), property.getLongitude(), property.getFavoritesCount(), property.getVersion());
+    }
+
+    public ListingRow withFavoritesCount(Integer count) {
+        return new ListingRow(id, price, size, zipCode, latitude, longitude, count, version);
+    }
+}
@@ -0,0 +1,11 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.entities.Property;
+
+// the searchable text of a listing, fed to the full-text index
+public record ListingText(Long id, String title, String description, String location) {
+
+    public static ListingText of(Property property) {
+        return new ListingText(property.getId(), property.getTitle(), property.getDescription(), property.getLocation());
+    }
+}
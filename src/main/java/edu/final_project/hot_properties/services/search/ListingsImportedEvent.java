@@ -0,0 +1,8 @@
+package edu.final_project.hot_properties.services.search;
+
+import java.util.List;
+
+/// One committed batch of a bulk import: many new listings, applied to the indexes and caches
+/// in one go instead of as one {@link ListingChangedEvent} each.
+public record ListingsImportedEvent(List<ListingChangedEvent> created) {
+}
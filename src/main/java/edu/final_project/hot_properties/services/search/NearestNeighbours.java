@@ -0,0 +1,90 @@
+package edu.final_project.hot_properties.services.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/// Brute-force k-nearest-neighbour search over a flat row-major feature matrix.
+/// Small catalogs are scanned on the calling thread; above PARALLEL_THRESHOLD rows the scan is
+/// split into fork-join tasks that each keep their own top k, merged on the way back up.
+final class NearestNeighbours {
+
+    static final int PARALLEL_THRESHOLD = 20_000;
+    private static final int CHUNK = 4_096;
+
+    private NearestNeighbours() {
+    }
+
+    // ordinals of the k rows closest to target (the target itself excluded), closest first
+    static int[] search(float[] features, int dims, int target, int k) {
+        int n = features.length / dims;
+        List<Neighbour> best = n > PARALLEL_THRESHOLD
+                ? ForkJoinPool.commonPool().invoke(new Scan(features, dims, target, k, 0, n))
+                : scan(features, dims, target, k, 0, n);
+
+        best.sort((a, b) -> Float.compare(a.distance, b.distance));
+        int[] result = new int[best.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = best.get(i).ordinal;
+        }
+        return result;
+    }
+
+    private record Neighbour(int ordinal, float distance) {
+    }
+
+    private static List<Neighbour> scan(float[] features, int dims, int target, int k, int from, int to) {
+        // max-heap on distance holding the best k seen so far
+        PriorityQueue<Neighbour> heap = new PriorityQueue<>(k + 1, (a, b) -> Float.compare(b.distance, a.distance));
+        int t = target * dims;
+        for (int row = from; row < to; row++) {
+            if (row == target) {
+                continue;
+            }
+            int r = row * dims;
+            float distance = 0;
+            for (int d = 0; d < dims; d++) {
+                float diff = features[r + d] - features[t + d];
+                distance += diff * diff;
+            }
+            if (heap.size() < k) {
+                heap.add(new Neighbour(row, distance));
+            } else if (distance < heap.peek().distance) {
+                heap.poll();
+                heap.add(new Neighbour(row, distance));
+            }
+        }
+        return new ArrayList<>(heap);
+    }
+
+    private static final class Scan extends RecursiveTask<List<Neighbour>> {
+
+        private final float[] features;
+        private final int dims, target, k, from, to;
+
+        Scan(float[] features, int dims, int target, int k, int from, int to) {
+            this.features = features;
+            this.dims = dims;
+            this.target = target;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Neighbour> compute() {
+            if (to - from <= CHUNK) {
+                return scan(features, dims, target, k, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            Scan left = new Scan(features, dims, target, k, from, mid);
+            left.fork();
+            List<Neighbour> merged = new Scan(features, dims, target, k, mid, to).compute();
+            merged.addAll(left.join());
+            merged.sort((a, b) -> Float.compare(a.distance, b.distance));
+            return new ArrayList<>(merged.subList(0, Math.min(k, merged.size())));
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.repositories.PropertyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/// In-process inverted index over listing title, location and description, ranked with BM25.
+///
+/// Each term maps to a postings list of (property id -> weighted term frequency). Title and
+/// location matches count more than description matches, the same way a BM25F field boost
+/// would. Updates are incremental: a changed listing has its old postings removed and the new
+/// ones added, so nothing is rebuilt on a write.
+@Component
+public class PropertyTextIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertyTextIndex.class);
+
+    // BM25 tuning, the usual defaults
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // field boosts
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float LOCATION_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    private static final Pattern SPLIT = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "its",
+            "of", "on", "or", "that", "the", "this", "to", "with");
+
+    private final PropertyRepository propertyRepository;
+
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, Set<String>> docTerms = new HashMap<>();
+    private final Map<Long, Float> docLengths = new HashMap<>();
+    private double totalLength = 0;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready = false;
+
+    public PropertyTextIndex(PropertyRepository propertyRepository) {
+        this.propertyRepository = propertyRepository;
+    }
+
+    // see StartupDataLoader
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Failed to build property text index: {}", e.getMessage(), e);
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docTerms.clear();
+            docLengths.clear();
+            totalLength = 0;
+            List<ListingText> all = propertyRepository.findAllListingTexts();
+            for (ListingText text : all) {
+                add(text);
+            }
+            ready = true;
+            logger.info("Property text index built with {} listings and {} terms.", all.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onListingChanged(ListingChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.propertyId());
+            if (!event.isDelete()) {
+                add(event.text());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onListingsImported(ListingsImportedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (ListingChangedEvent created : event.created()) {
+                remove(created.propertyId());
+                add(created.text());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /// Listings containing every term of the query, with their BM25 score, best match first.
+    public Map<Long, Double> search(String query) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        Map<Long, Double> ranked = new LinkedHashMap<>();
+        if (terms.isEmpty()) {
+            return ranked;
+        }
+
+        lock.readLock().lock();
+        try {
+            // start from the rarest term so the candidate set is as small as possible
+            terms.sort((a, b) -> Integer.compare(postingsSize(a), postingsSize(b)));
+            Map<Long, Float> rarest = postings.get(terms.get(0));
+            if (rarest == null) {
+                return ranked;
+            }
+
+            int docCount = docLengths.size();
+            double avgLength = docCount > 0 ? totalLength / docCount : 1;
+            Map<Long, Double> scores = new HashMap<>();
+
+            candidates:
+            for (Long id : rarest.keySet()) {
+                double score = 0;
+                float length = docLengths.get(id);
+                for (String term : terms) {
+                    Map<Long, Float> list = postings.get(term);
+                    Float tf = list != null ? list.get(id) : null;
+                    if (tf == null) {
+                        continue candidates; // every term must match
+                    }
+                    double idf = Math.log(1 + (docCount - list.size() + 0.5) / (list.size() + 0.5));
+                    score += idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / avgLength));
+                }
+                scores.put(id, score);
+            }
+
+            scores.entrySet().stream()
+                    .sorted((a, b) -> {
+                        int cmp = Double.compare(b.getValue(), a.getValue());
+                        return cmp != 0 ? cmp : Long.compare(b.getKey(), a.getKey());
+                    })
+                    .forEach(e -> ranked.put(e.getKey(), e.getValue()));
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : SPLIT.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private int postingsSize(String term) {
+        Map<Long, Float> list = postings.get(term);
+        return list != null ? list.size() : 0;
+    }
+
+    // callers hold the write lock
+    private void add(ListingText text) {
+        Map<String, Float> frequencies = new HashMap<>();
+        count(frequencies, text.title(), TITLE_WEIGHT);
+        count(frequencies, text.location(), LOCATION_WEIGHT);
+        count(frequencies, text.description(), DESCRIPTION_WEIGHT);
+
+        float length = 0;
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(text.id(), entry.getValue());
+            length += entry.getValue();
+        }
+        docTerms.put(text.id(), frequencies.keySet());
+        docLengths.put(text.id(), length);
+        totalLength += length;
+    }
+
+    private void remove(Long id) {
+        Set<String> terms = docTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        Float length = docLengths.remove(id);
+        if (length != null) {
+            totalLength -= length;
+        }
+    }
+
+    private static void count(Map<String, Float> frequencies, String text, float weight) {
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.dtos.PropertyCard;
+import edu.final_project.hot_properties.services.images.ImageVariantsReadyEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Bounded LRU cache of "similar homes" cards per property id.
+///
+/// Any listing change moves the feature normalization and can make the changed listing a
+/// neighbour of any other, so the whole cache is dropped on a listing write; an edited listing
+/// is never served its old neighbours. A favorite only changes the cards that show the listing.
+@Component
+public class SimilarListingsCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<Long, List<PropertyCard>> entries;
+
+    // same guard as BrowseResultCache: results computed before a write are never stored after it
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SimilarListingsCache(@Value("${property.similar-cache.max-entries:1000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<PropertyCard>> eldest) {
+                return size() > SimilarListingsCache.this.maxEntries;
+            }
+        };
+    }
+
+    public List<PropertyCard> get(Long propertyId) {
+        synchronized (entries) {
+            List<PropertyCard> cards = entries.get(propertyId);
+            (cards != null ? hits : misses).incrementAndGet();
+            return cards;
+        }
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(Long propertyId, List<PropertyCard> cards, long computedAtGeneration) {
+        synchronized (entries) {
+            if (generation.get() == computedAtGeneration) {
+                entries.put(propertyId, List.copyOf(cards));
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onListingChanged(ListingChangedEvent event) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onListingsImported(ListingsImportedEvent event) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onFavoriteCountChanged(FavoriteCountChangedEvent event) {
+        dropEntriesShowing(event.propertyId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onImageVariantsReady(ImageVariantsReadyEvent event) {
+        dropEntriesShowing(event.propertyId());
+    }
+
+    private void dropEntriesShowing(Long propertyId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            Iterator<List<PropertyCard>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().stream().anyMatch(card -> card.id().equals(propertyId))) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+}
@@ -0,0 +1,216 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.dtos.LocationSuggestion;
+import edu.final_project.hot_properties.repositories.PropertyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Prefix index over listing locations and zip codes for the browse form's typeahead.
+///
+/// Every distinct location is keyed from the start of each of its words ("chicago, il 60618",
+/// "il 60618", "60618"), so typing any part of it matches. Keys live in one sorted array and a
+/// lookup is a binary search for the prefix range; the range is ranked by how many listings
+/// share the value, and the ranking of a wide range is kept for the next keystroke. Like
+/// {@link ListingIndex}, a write swaps in a freshly built snapshot.
+@Component
+public class SuggestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final PropertyRepository propertyRepository;
+
+    // id -> (location, zip) so edits and deletes can take back the old values
+    private final Map<Long, String[]> listings = new HashMap<>();
+    private final Map<String, Integer> locationCounts = new HashMap<>();
+    private final Map<String, Integer> zipCounts = new HashMap<>();
+    private final Object writeLock = new Object();
+
+    private volatile Snapshot snapshot = Snapshot.build(Map.of(), Map.of());
+
+    public SuggestIndex(PropertyRepository propertyRepository) {
+        this.propertyRepository = propertyRepository;
+    }
+
+    // see StartupDataLoader
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Failed to build location suggestions: {}", e.getMessage(), e);
+        }
+    }
+
+    public void rebuild() {
+        synchronized (writeLock) {
+            listings.clear();
+            locationCounts.clear();
+            zipCounts.clear();
+            for (ListingText text : propertyRepository.findAllListingTexts()) {
+                add(text.id(), text.location(), null);
+            }
+            for (ListingRow row : propertyRepository.findAllListingRows()) {
+                add(row.id(), null, row.zipCode());
+            }
+            snapshot = Snapshot.build(locationCounts, zipCounts);
+            logger.info("Location suggestions built with {} keys.", snapshot.keys.length);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onListingChanged(ListingChangedEvent event) {
+        synchronized (writeLock) {
+            remove(event.propertyId());
+            if (!event.isDelete()) {
+                add(event.propertyId(), event.text().location(), event.after().zipCode());
+            }
+            snapshot = Snapshot.build(locationCounts, zipCounts);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onListingsImported(ListingsImportedEvent event) {
+        synchronized (writeLock) {
+            for (ListingChangedEvent created : event.created()) {
+                remove(created.propertyId());
+                add(created.propertyId(), created.text().location(), created.after().zipCode());
+            }
+            snapshot = Snapshot.build(locationCounts, zipCounts);
+        }
+    }
+
+    /// Completions for what the user has typed so far, most common first.
+    public List<LocationSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        return snapshot.lookup(key, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    // callers hold writeLock; either value may be null when loading from separate projections
+    private void add(Long id, String location, String zipCode) {
+        String[] current = listings.computeIfAbsent(id, k -> new String[2]);
+        if (location != null && !location.isBlank()) {
+            current[0] = location.trim();
+            locationCounts.merge(current[0], 1, Integer::sum);
+        }
+        if (zipCode != null && !zipCode.isBlank()) {
+            current[1] = zipCode.trim();
+            zipCounts.merge(current[1], 1, Integer::sum);
+        }
+    }
+
+    private void remove(Long id) {
+        String[] current = listings.remove(id);
+        if (current == null) {
+            return;
+        }
+        if (current[0] != null) {
+            decrement(locationCounts, current[0]);
+        }
+        if (current[1] != null) {
+            decrement(zipCounts, current[1]);
+        }
+    }
+
+    private static void decrement(Map<String, Integer> counts, String value) {
+        counts.computeIfPresent(value, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Snapshot {
+
+        // a run this long is ranked once per snapshot, short prefixes span most of the keys
+        private static final int WIDE_RUN = 256;
+
+        final String[] keys;                    // sorted
+        final LocationSuggestion[] suggestions; // suggestions[i] is what keys[i] completes to
+        // best MAX_SUGGESTIONS of each wide prefix looked up so far; at most keys / WIDE_RUN
+        // prefixes of any one length can be wide, which bounds it
+        final Map<String, List<LocationSuggestion>> topByPrefix = new ConcurrentHashMap<>();
+
+        private Snapshot(String[] keys, LocationSuggestion[] suggestions) {
+            this.keys = keys;
+            this.suggestions = suggestions;
+        }
+
+        static Snapshot build(Map<String, Integer> locations, Map<String, Integer> zips) {
+            List<Map.Entry<String, LocationSuggestion>> entries = new ArrayList<>();
+            for (Map.Entry<String, Integer> zip : zips.entrySet()) {
+                LocationSuggestion suggestion = new LocationSuggestion(zip.getKey(), "zip", zip.getValue());
+                entries.add(Map.entry(normalize(zip.getKey()), suggestion));
+            }
+            for (Map.Entry<String, Integer> location : locations.entrySet()) {
+                LocationSuggestion suggestion = new LocationSuggestion(location.getKey(), "location", location.getValue());
+                String normalized = normalize(location.getKey());
+                // one key per word start
+                for (int i = 0; i < normalized.length(); i++) {
+                    if (i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1))) {
+                        if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                            entries.add(Map.entry(normalized.substring(i), suggestion));
+                        }
+                    }
+                }
+            }
+            entries.sort(Map.Entry.comparingByKey());
+
+            String[] keys = new String[entries.size()];
+            LocationSuggestion[] suggestions = new LocationSuggestion[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                keys[i] = entries.get(i).getKey();
+                suggestions[i] = entries.get(i).getValue();
+            }
+            return new Snapshot(keys, suggestions);
+        }
+
+        List<LocationSuggestion> lookup(String prefix, int limit) {
+            // keys sharing the prefix form one contiguous run
+            int from = insertionPoint(prefix);
+            int to = insertionPoint(prefix + Character.MAX_VALUE);
+            if (to - from < WIDE_RUN) {
+                return rank(from, to, limit);
+            }
+            List<LocationSuggestion> top = topByPrefix.computeIfAbsent(prefix,
+                    p -> rank(from, to, MAX_SUGGESTIONS));
+            return top.subList(0, Math.min(limit, top.size()));
+        }
+
+        private int insertionPoint(String key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i < 0 ? -i - 1 : i;
+        }
+
+        private List<LocationSuggestion> rank(int from, int to, int limit) {
+            Set<LocationSuggestion> matches = new LinkedHashSet<>();
+            for (int i = from; i < to; i++) {
+                matches.add(suggestions[i]);
+            }
+            return matches.stream()
+                    .sorted(Comparator.comparingInt(LocationSuggestion::listings).reversed()
+                            .thenComparing(LocationSuggestion::value))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package edu.final_project.hot_properties.services.stats;
+
+import edu.final_project.hot_properties.services.search.ListingChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Listing view counts, accumulated in memory and written to `property_stats` in batches.
+///
+/// A view only increments a {@link LongAdder}, which spreads contended increments over
+/// several cells instead of fighting over one. The flush reads each adder's running total and
+/// writes what was added since the previous flush, so a view landing during a flush is never
+/// lost, it just goes out with the next one. A failed flush is retried the same way.
+@Component
+public class PropertyViewCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertyViewCounter.class);
+
+    private static final String UPSERT = "INSERT INTO property_stats (property_id, view_count) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE view_count = view_count + VALUES(view_count)";
+
+    private static final class Counter {
+        final LongAdder views = new LongAdder();
+        long flushed; // only touched by flush(), under its lock
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+
+    public PropertyViewCounter(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    public void recordView(Long propertyId) {
+        counters.computeIfAbsent(propertyId, id -> new Counter()).views.increment();
+    }
+
+    /// Stored count plus whatever has not been flushed yet, for each of the given listings.
+    public Map<Long, Long> viewCounts(Collection<Long> propertyIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (propertyIds.isEmpty()) {
+            return counts;
+        }
+        synchronized (flushLock) { // so a flush cannot move views from memory to the table mid-read
+            namedJdbcTemplate.query("SELECT property_id, view_count FROM property_stats WHERE property_id IN (:ids)",
+                    new MapSqlParameterSource("ids", propertyIds),
+                    rs -> {
+                        counts.put(rs.getLong("property_id"), rs.getLong("view_count"));
+                    });
+            for (Long id : propertyIds) {
+                Counter counter = counters.get(id);
+                long pending = counter != null ? counter.views.sum() - counter.flushed : 0;
+                counts.merge(id, pending, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${property.view-counter.flush-ms:5000}")
+    public void flush() {
+        synchronized (flushLock) {
+            List<Long> ids = new ArrayList<>();
+            List<Object[]> batch = new ArrayList<>();
+            List<Long> totals = new ArrayList<>();
+            for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+                Counter counter = entry.getValue();
+                long total = counter.views.sum();
+                if (total > counter.flushed) {
+                    ids.add(entry.getKey());
+                    totals.add(total);
+                    batch.add(new Object[]{entry.getKey(), total - counter.flushed});
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPSERT, batch);
+            } catch (DataAccessException e) {
+                logger.warn("Failed to flush view counts for {} listings, will retry: {}", batch.size(), e.getMessage());
+                dropDeletedListings(ids);
+                return;
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                Counter counter = counters.get(ids.get(i));
+                if (counter != null) {
+                    counter.flushed = totals.get(i);
+                }
+            }
+            logger.debug("Flushed view counts for {} listings.", batch.size());
+        }
+    }
+
+    // a view racing with a delete can leave a counter whose row can never be written,
+    // which would fail every later batch
+    private void dropDeletedListings(List<Long> ids) {
+        try {
+            List<Long> existing = namedJdbcTemplate.queryForList("SELECT id FROM properties WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", ids), Long.class);
+            ids.stream().filter(id -> !existing.contains(id)).forEach(counters::remove);
+        } catch (DataAccessException e) {
+            logger.warn("Failed to check listings of pending view counts: {}", e.getMessage());
+        }
+    }
+
+    // the row goes with the listing (on delete cascade), drop the views not written yet
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.isDelete()) {
+            counters.remove(event.propertyId());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
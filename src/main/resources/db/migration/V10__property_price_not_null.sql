@@ -0,0 +1,4 @@
+-- price is mandatory on Property; rows from before the check get 0, the value the listing
+-- index already sorts them by, so the browse keyset cursor always has a price to carry
+update properties set price = 0 where price is null;
+alter table properties modify price float(53) not null;
@@ -0,0 +1,8 @@
+-- zip code centroid of the listing, null when the zip is not in the bundled dataset
+alter table properties add column latitude float(53);
+alter table properties add column longitude float(53);
+
+-- favorites per listing, kept in step with the favorites table by atomic updates
+alter table properties add column favorites_count integer default 0 not null;
+update properties p set favorites_count = (select count(*) from favorites f where f.property_id = p.id);
+create index idx_properties_favorites_count on properties (favorites_count, id);
@@ -0,0 +1,68 @@
+-- Schema as previously generated by hibernate ddl-auto=update, before coordinates and favorite counters.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+create table roles (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    created_at datetime(6) not null,
+    id bigint not null auto_increment,
+    role_id bigint not null,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    password varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table properties (
+    price float(53),
+    size integer,
+    agent_id bigint,
+    id bigint not null auto_increment,
+    description TEXT,
+    location varchar(255),
+    title varchar(255),
+    zip_code varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table property_images (
+    id bigint not null auto_increment,
+    property_id bigint,
+    image_filename varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table favorites (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    property_id bigint,
+    user_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table messages (
+    id bigint not null auto_increment,
+    property_id bigint not null,
+    sender_id bigint not null,
+    timestamp datetime(6),
+    content TEXT not null,
+    reply varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+alter table properties add constraint UKe0w1ov3lxfnk7w02afjru6dyy unique (title);
+alter table roles add constraint UKofx66keruapi6vyqpv6f2or37 unique (name);
+alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table favorites add constraint FKk7du8b8ewipawnnpg76d55fus foreign key (user_id) references users (id);
+alter table favorites add constraint FKd1rhumcrlv6g55lt8eprudthc foreign key (property_id) references properties (id);
+alter table messages add constraint FKq7yrg0fj3b6ebwu3bgjsc558s foreign key (property_id) references properties (id);
+alter table messages add constraint FK4ui4nnwntodh6wjvck53dbk9m foreign key (sender_id) references users (id);
+alter table properties add constraint FK2ut1fw8hilm6cx5rt26j3xmad foreign key (agent_id) references users (id);
+alter table property_images add constraint FKemw5i1cysiorfaxfba7tgtpiu foreign key (property_id) references properties (id);
+alter table users add constraint FKp56c1712k691lhsyewcssf40f foreign key (role_id) references roles (id);
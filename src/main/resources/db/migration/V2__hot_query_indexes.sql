@@ -0,0 +1,20 @@
+-- One index per hot lookup; the entity @Table declarations list the same names.
+
+-- browse: zip filter with a price range / price order, and price order alone (keyset on id)
+create index idx_properties_zip_price on properties (zip_code, price, id);
+create index idx_properties_price on properties (price, id);
+create index idx_properties_size on properties (size);
+-- agent dashboards and the duplicate-location check on create
+create index idx_properties_agent on properties (agent_id);
+create index idx_properties_location on properties (location);
+
+-- cover image: first image id per property
+create index idx_property_images_property on property_images (property_id, id);
+
+-- "is this a favorite" checks and a buyer's favorites list, then favorites per listing
+create index idx_favorites_user_property on favorites (user_id, property_id);
+create index idx_favorites_property on favorites (property_id);
+
+-- inbox per listing and sent messages per user
+create index idx_messages_property on messages (property_id);
+create index idx_messages_sender on messages (sender_id);
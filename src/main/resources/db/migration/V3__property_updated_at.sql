@@ -0,0 +1,3 @@
+-- last modification of a listing, validator for conditional GETs on the details page
+alter table properties add column updated_at datetime(6);
+update properties set updated_at = current_timestamp(6);
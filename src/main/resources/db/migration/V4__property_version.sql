@@ -0,0 +1,2 @@
+-- optimistic locking counter for listing edits
+alter table properties add column version bigint default 0 not null;
@@ -0,0 +1,7 @@
+-- per-listing counters kept out of the properties row, written in batches by PropertyViewCounter
+create table property_stats (
+    property_id bigint not null,
+    view_count bigint default 0 not null,
+    primary key (property_id),
+    constraint fk_property_stats_property foreign key (property_id) references properties (id) on delete cascade
+) engine=InnoDB;
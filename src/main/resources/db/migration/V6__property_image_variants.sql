@@ -0,0 +1,4 @@
+-- resized copies written next to the original by ImageVariantGenerator, null until generated
+alter table property_images add column thumbnail_filename varchar(255);
+alter table property_images add column card_filename varchar(255);
+alter table property_images add column gallery_filename varchar(255);
@@ -0,0 +1,3 @@
+-- sha-256 of the stored image; rows sharing a hash share one blob under uploads/blobs
+alter table property_images add column content_hash char(64);
+create index idx_property_images_content_hash on property_images (content_hash);
@@ -0,0 +1,7 @@
+-- the photo shown on the listing's card, so cards and lists read one image row by key
+-- instead of the whole image collection
+alter table properties add column cover_image_id bigint;
+alter table properties add constraint fk_properties_cover_image foreign key (cover_image_id)
+    references property_images (id) on delete set null;
+-- existing listings keep the photo their cards showed so far, the first one
+update properties p set cover_image_id = (select min(i.id) from property_images i where i.property_id = p.id);
@@ -0,0 +1,164 @@
+package edu.final_project.hot_properties.controllers;
+
+import edu.final_project.hot_properties.repositories.PropertyImageRepository;
+import edu.final_project.hot_properties.services.images.ImageFileCache;
+import edu.final_project.hot_properties.services.images.ImageStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImageControllerTest {
+
+    private static final byte[] PHOTO = "0123456789X".getBytes(StandardCharsets.US_ASCII);
+
+    private Path root;
+    private MockMvc mvc;
+    private String url;
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String uploadDir = "target/image-controller-test-" + UUID.randomUUID();
+        root = Paths.get(System.getProperty("user.dir"), uploadDir);
+        ImageFileCache fileCache = new ImageFileCache(4);
+        ImageStore store = new ImageStore(mock(PropertyImageRepository.class), fileCache, uploadDir);
+        String filename = store.store(new ByteArrayInputStream(PHOTO), "photo.jpg").filename();
+        url = ImageStore.URL_PREFIX + filename;
+        etag = "\"" + filename + "\"";
+        mvc = MockMvcBuilders.standaloneSetup(new ImageController(store, fileCache)).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (Files.exists(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test
+    void wholeFileIsCacheableForever() throws Exception {
+        mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(PHOTO))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 11))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    void singleRangeIsPartialContent() throws Exception {
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("234"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 3))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-4/11"));
+    }
+
+    @Test
+    void openAndOverlongRangesStopAtTheEnd() throws Exception {
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=8-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("89X"))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 8-10/11"));
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=9-500"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("9X"))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 9-10/11"));
+    }
+
+    @Test
+    void suffixRangeIsTheLastBytes() throws Exception {
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("89X"))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 8-10/11"));
+        // longer than the file: the whole file as a range
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=-50"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(PHOTO))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-10/11"));
+    }
+
+    @Test
+    void unsatisfiableRangesAre416() throws Exception {
+        for (String range : new String[]{"bytes=11-", "bytes=20-30", "bytes=5-2", "bytes=-0",
+                "bytes=99999999999999999999999-"}) {
+            mvc.perform(get(url).header(HttpHeaders.RANGE, range))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */11"));
+        }
+    }
+
+    @Test
+    void severalOrMalformedRangesGetTheWholeFile() throws Exception {
+        for (String range : new String[]{"bytes=0-1,4-5", "bytes=-", "items=0-1"}) {
+            mvc.perform(get(url).header(HttpHeaders.RANGE, range))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(PHOTO))
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE));
+        }
+    }
+
+    @Test
+    void rangeForAnotherRepresentationGetsTheWholeFile() throws Exception {
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-4").header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(PHOTO));
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-4").header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("234"));
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws Exception {
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]))
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+                .andExpect(status().isNotModified());
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void headSendsTheLengthWithoutTheBody() throws Exception {
+        mvc.perform(head(url))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 11))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void unknownOrInvalidNamesAre404() throws Exception {
+        mvc.perform(get(ImageStore.URL_PREFIX + "a".repeat(64) + ".jpg"))
+                .andExpect(status().isNotFound());
+        mvc.perform(get(ImageStore.URL_PREFIX + "photo.jpg"))
+                .andExpect(status().isNotFound());
+    }
+}
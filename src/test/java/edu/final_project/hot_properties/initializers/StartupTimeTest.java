@@ -0,0 +1,54 @@
+package edu.final_project.hot_properties.initializers;
+
+import edu.final_project.hot_properties.HotPropertiesApplication;
+import edu.final_project.hot_properties.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// Startup benchmark: boots the whole application, web server included, against a fresh
+/// database and fails if the context start or the time until the startup data phase is done
+/// regresses past a budget. The defaults are about 1.3 times a typical cold start on the
+/// build container (26-30 s to the context, 28-32 s to ready), so a real regression fails
+/// rather than hides in the slack; a known CI machine can set its own with
+/// `-Dstartup.max-context-ms=...` and `-Dstartup.max-ready-ms=...`.
+class StartupTimeTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeTest.class);
+
+    private static final long MAX_CONTEXT_MS = Long.getLong("startup.max-context-ms", 34_000);
+    private static final long MAX_READY_MS = Long.getLong("startup.max-ready-ms", 37_000);
+
+    @Test
+    void startsWithinBudget() throws InterruptedException {
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(HotPropertiesApplication.class)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:startup-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "server.port=0")
+                .run()) {
+            long contextMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+            StartupDataLoader loader = context.getBean(StartupDataLoader.class);
+            assertTrue(loader.awaitReady(Duration.ofMillis(MAX_READY_MS)), "startup data phase did not finish");
+            long readyMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+            logger.info("Context started in {} ms, ready in {} ms", contextMs, readyMs);
+            assertTrue(contextMs <= MAX_CONTEXT_MS,
+                    "context started in " + contextMs + " ms, budget " + MAX_CONTEXT_MS + " ms");
+            assertTrue(readyMs <= MAX_READY_MS, "ready in " + readyMs + " ms, budget " + MAX_READY_MS + " ms");
+            assertEquals(ReadinessState.ACCEPTING_TRAFFIC,
+                    context.getBean(ApplicationAvailability.class).getReadinessState());
+            assertEquals(6, context.getBean(UserRepository.class).count());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package edu.final_project.hot_properties.repositories;
+
+import edu.final_project.hot_properties.entities.Property;
+import edu.final_project.hot_properties.entities.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/// Calls every hot repository method against H2 (MySQL mode, migrated by Flyway), records the
+/// SQL Hibernate sends for it together with the bound values, and checks with EXPLAIN that
+/// each statement is answered from an index rather than a full table scan.
+///
+/// The values are inlined into the statement before EXPLAIN, which is what MySQL sees as well:
+/// Connector/J prepares statements on the client by default, so `:zipCode IS NULL OR ...`
+/// reaches the planner as a constant it can fold away.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.datasource.url=" + HotQueryPlanTest.URL)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HotQueryPlanTest {
+
+    static final String URL = "jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private PropertyImageRepository propertyImageRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SqlRecorder recorder;
+
+    // enough rows that the planner has a reason to prefer an index
+    @BeforeAll
+    void seed() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement st = connection.createStatement()) {
+            st.execute("insert into roles (name) values ('AGENT')");
+            st.execute("insert into users (created_at, role_id, email, first_name, last_name, password) " +
+                    "values (current_timestamp, 1, 'agent@example.com', 'A', 'Gent', 'x')");
+            for (int i = 1; i <= 500; i++) {
+                st.execute("insert into properties (title, price, description, location, zip_code, size, agent_id) " +
+                        "values ('Listing " + i + "', " + (100_000 + i * 1_000) + ", 'd', 'Chicago " + i + "', '606" +
+                        String.format("%02d", i % 60) + "', " + (500 + i) + ", 1)");
+                st.execute("insert into property_images (property_id, image_filename) values (" + i + ", 'a.webp')");
+                st.execute("update properties set cover_image_id = " + i + " where id = " + i);
+                st.execute("insert into favorites (created_at, property_id, user_id) values (current_timestamp, " + i + ", 1)");
+                st.execute("insert into messages (property_id, sender_id, timestamp, content) " +
+                        "values (" + i + ", 1, current_timestamp, 'hi')");
+            }
+            st.execute("analyze");
+        }
+    }
+
+    Stream<Arguments> hotQueries() {
+        PageRequest page = PageRequest.of(0, 21);
+        Property property = propertyRepository.getReferenceById(7L);
+        User agent = userRepository.getReferenceById(1L);
+        return Stream.of(
+                query("PropertyRepository.findCardsByIdIn",
+                        () -> propertyRepository.findCardsByIdIn(List.of(1L, 2L, 3L))),
+                query("PropertyRepository.findFavoriteCardsByUserId",
+                        () -> propertyRepository.findFavoriteCardsByUserId(1L)),
+                query("PropertyRepository.findByLocation",
+                        () -> propertyRepository.findByLocation("Chicago 42")),
+                query("PropertyRepository.findAllByAgentId",
+                        () -> propertyRepository.findAllByAgentId(1L)),
+                query("PropertyRepository.findVersionById",
+                        () -> propertyRepository.findVersionById(7L)),
+                query("PropertyRepository.findPageByPriceAsc, no filters",
+                        () -> propertyRepository.findPageByPriceAsc(null, null, null, null, null, null, page)),
+                query("PropertyRepository.findPageByPriceAsc, zip and price range",
+                        () -> propertyRepository.findPageByPriceAsc("60614", null, 150_000.0, 300_000.0,
+                                null, null, page)),
+                query("PropertyRepository.findPageByPriceAsc, keyset step",
+                        () -> propertyRepository.findPageByPriceAsc(null, null, null, null, 200_000.0, 100L, page)),
+                query("PropertyRepository.findPageByPriceDesc, keyset step",
+                        () -> propertyRepository.findPageByPriceDesc(null, null, null, null, 200_000.0, 100L, page)),
+                query("PropertyRepository.findPageByIdDesc, keyset step",
+                        () -> propertyRepository.findPageByIdDesc(null, null, null, null, 300L, page)),
+                query("PropertyRepository.findPageByPopularity, keyset step",
+                        () -> propertyRepository.findPageByPopularity(null, null, null, null, 5, 300L, page)),
+                query("FavoriteRepository.findByBuyerAndProperty",
+                        () -> favoriteRepository.findByBuyerAndProperty(agent, property)),
+                query("FavoriteRepository.findPropertyIdsByBuyerEmail",
+                        () -> favoriteRepository.findPropertyIdsByBuyerEmail("agent@example.com")),
+                query("MessageRepository.findAllByProperty",
+                        () -> messageRepository.findAllByProperty(property)),
+                query("MessageRepository.findAllBySender",
+                        () -> messageRepository.findAllBySender(agent)),
+                query("PropertyImageRepository.countByContentHash",
+                        () -> propertyImageRepository.countByContentHash("abc")));
+    }
+
+    private static Arguments query(String name, Runnable call) {
+        return Arguments.of(name, call);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryUsesAnIndex(String name, Runnable call) throws SQLException {
+        List<String> statements = recorder.record(call);
+        assertFalse(statements.isEmpty(), () -> name + " sent no SQL");
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.toLowerCase().contains("tablescan"), () -> name + ", full table scan in plan:\n" + plan);
+        }
+    }
+
+    private static String explain(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("explain " + sql)) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            return plan.toString();
+        }
+    }
+
+    @TestConfiguration
+    static class RecorderConfig {
+
+        @Bean
+        static SqlRecorder sqlRecorder() {
+            return new SqlRecorder();
+        }
+    }
+
+    /// Wraps the DataSource so the queries prepared while recording are kept, with the values
+    /// bound to them inlined.
+    static class SqlRecorder implements BeanPostProcessor {
+
+        private final List<String> statements = new ArrayList<>();
+        private volatile boolean recording;
+
+        synchronized List<String> record(Runnable call) {
+            statements.clear();
+            recording = true;
+            try {
+                call.run();
+            } finally {
+                recording = false;
+            }
+            return List.copyOf(statements);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+                return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                    Object result = method.invoke(target, args);
+                    return result instanceof Connection connection
+                            ? proxy(Connection.class, connection, this::onConnection) : result;
+                });
+            }
+            return bean;
+        }
+
+        private Object onConnection(Object target, java.lang.reflect.Method method, Object[] args) throws Exception {
+            Object result = method.invoke(target, args);
+            if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                String sql = (String) args[0];
+                Map<Integer, Object> values = new TreeMap<>();
+                return proxy(PreparedStatement.class, statement, (ps, psMethod, psArgs) -> {
+                    String name = psMethod.getName();
+                    if (name.startsWith("set") && psArgs != null && psArgs.length >= 2 && psArgs[0] instanceof Integer i) {
+                        values.put(i, name.equals("setNull") ? null : psArgs[1]);
+                    } else if (name.equals("executeQuery") && recording && sql.trim().toLowerCase().startsWith("select")) {
+                        statements.add(inline(sql, values));
+                    }
+                    return psMethod.invoke(ps, psArgs);
+                });
+            }
+            return result;
+        }
+
+        private static String inline(String sql, Map<Integer, Object> values) {
+            StringBuilder out = new StringBuilder();
+            int index = 0;
+            for (char c : sql.toCharArray()) {
+                if (c != '?') {
+                    out.append(c);
+                    continue;
+                }
+                Object value = values.get(++index);
+                if (value == null) {
+                    out.append("null");
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    out.append(value);
+                } else {
+                    out.append('\'').append(value.toString().replace("'", "''")).append('\'');
+                }
+            }
+            return out.toString();
+        }
+
+        @FunctionalInterface
+        private interface Handler {
+            Object handle(Object target, java.lang.reflect.Method method, Object[] args) throws Exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Handler handler) {
+            InvocationHandler invocation = (p, method, args) -> {
+                try {
+                    return handler.handle(target, method, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocation);
+        }
+    }
+}
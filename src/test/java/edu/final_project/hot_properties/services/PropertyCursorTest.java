@@ -0,0 +1,56 @@
+package edu.final_project.hot_properties.services;
+
+import edu.final_project.hot_properties.exceptions.InvalidPropertyParameterException;
+import edu.final_project.hot_properties.services.search.ListingQuery;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PropertyCursorTest {
+
+    @Test
+    void encodedCursorDecodesToItself() {
+        PropertyCursor cursor = new PropertyCursor(ListingQuery.SORT_PRICE_ASC, 325_000.5, 42L);
+
+        assertEquals(cursor, PropertyCursor.decode(cursor.encode(), ListingQuery.SORT_PRICE_ASC));
+    }
+
+    @Test
+    void cursorWithoutKeyDecodesToItself() {
+        PropertyCursor cursor = new PropertyCursor(ListingQuery.SORT_ID_DESC, null, 7L);
+
+        assertEquals(cursor, PropertyCursor.decode(cursor.encode(), ListingQuery.SORT_ID_DESC));
+    }
+
+    @Test
+    void missingTokenMeansFirstPage() {
+        assertNull(PropertyCursor.decode(null, ListingQuery.SORT_PRICE_ASC));
+        assertNull(PropertyCursor.decode("  ", ListingQuery.SORT_PRICE_ASC));
+    }
+
+    @Test
+    void tokenFromAnotherSortOrderIsRejected() {
+        String token = new PropertyCursor(ListingQuery.SORT_PRICE_ASC, 100.0, 1L).encode();
+
+        assertThrows(InvalidPropertyParameterException.class,
+                () -> PropertyCursor.decode(token, ListingQuery.SORT_POPULAR));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        for (String token : new String[]{"not base64!", token("price_asc|100"), token("price_asc|100|1|2"),
+                token("price_asc|cheap|1"), token("price_asc|100|one"), token("price_asc|100|")}) {
+            assertThrows(InvalidPropertyParameterException.class,
+                    () -> PropertyCursor.decode(token, ListingQuery.SORT_PRICE_ASC), token);
+        }
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,94 @@
+package edu.final_project.hot_properties.services.images;
+
+import edu.final_project.hot_properties.repositories.PropertyImageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ImageStoreTest {
+
+    private static final byte[] PHOTO = "not really a jpeg".getBytes(StandardCharsets.UTF_8);
+
+    private String uploadDir;
+    private Path root;
+    private ImageStore store;
+
+    @BeforeEach
+    void setUp() {
+        uploadDir = "target/image-store-test-" + UUID.randomUUID();
+        root = Paths.get(System.getProperty("user.dir"), uploadDir);
+        store = new ImageStore(mock(PropertyImageRepository.class), new ImageFileCache(4), uploadDir);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (Files.exists(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test
+    void storingTheSameBytesTwiceKeepsOneBlob() throws IOException {
+        ImageStore.StoredImage first = store.store(new ByteArrayInputStream(PHOTO), "a.JPEG");
+        Path blob = store.resolve(first.filename());
+        Object inode = Files.getAttribute(blob, "unix:ino");
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+        Files.setLastModifiedTime(blob, old);
+
+        ImageStore.StoredImage second = store.store(new ByteArrayInputStream(PHOTO), "b.jpg");
+
+        assertEquals(first, second);
+        assertEquals(first.contentHash() + ".jpg", first.filename());
+        assertEquals(inode, Files.getAttribute(blob, "unix:ino"), "the blob was replaced");
+        // marked as reused, so a concurrent release keeps it
+        assertTrue(Files.getLastModifiedTime(blob).compareTo(old) > 0);
+        try (Stream<Path> files = Files.list(store.blobDirectory())) {
+            assertEquals(1, files.count(), "the temp file was left behind");
+        }
+    }
+
+    @Test
+    void uploadOfAnAdoptedImageKeepsTheHardLink() throws IOException {
+        Path legacy = root.resolve("7").resolve("photo.jpg");
+        Files.createDirectories(legacy.getParent());
+        Files.write(legacy, PHOTO);
+        ImageStore.StoredImage adopted = store.adopt(legacy);
+
+        ImageStore.StoredImage uploaded = store.store(new ByteArrayInputStream(PHOTO), "upload.jpg");
+
+        assertEquals(adopted, uploaded);
+        assertTrue(Files.isSameFile(legacy, store.resolve(uploaded.filename())), "the content is stored twice");
+    }
+
+    @Test
+    void differentBytesGetDifferentBlobs() throws IOException {
+        ImageStore.StoredImage a = store.store(new ByteArrayInputStream(PHOTO), "a.jpg");
+        ImageStore.StoredImage b = store.store(new ByteArrayInputStream("another".getBytes(StandardCharsets.UTF_8)),
+                "b.jpg");
+
+        assertTrue(!a.contentHash().equals(b.contentHash()));
+        try (Stream<Path> files = Files.list(store.blobDirectory())) {
+            assertEquals(2, files.count());
+        }
+    }
+}
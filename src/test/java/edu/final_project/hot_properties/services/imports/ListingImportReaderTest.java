@@ -0,0 +1,152 @@
+package edu.final_project.hot_properties.services.imports;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListingImportReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void plainRecordsMapByHeaderName() throws IOException {
+        List<ListingImportRow> rows = readCsv("""
+                zip_code,title,price,size,agent_email
+                60618,Brick bungalow,350000,1200,agent@example.com
+                60614,Garden flat,275000,900,agent@example.com
+                """);
+
+        assertEquals(2, rows.size());
+        assertEquals(new ListingImportRow(1, "Brick bungalow", "350000", null, null, "60618", "1200",
+                "agent@example.com", null), rows.get(0));
+        assertEquals(2, rows.get(1).number());
+        assertEquals("Garden flat", rows.get(1).title());
+    }
+
+    @Test
+    void quotedFieldsKeepCommasLineBreaksAndQuotes() throws IOException {
+        List<ListingImportRow> rows = readCsv("title,description,location,price\r\n"
+                + "\"Loft, top floor\",\"Two lines:\nfirst\r\nsecond\",\"He said \"\"sunny\"\"\",\"1,250,000\"\r\n"
+                + "\"\",plain,,5\r\n");
+
+        assertEquals(2, rows.size());
+        ListingImportRow loft = rows.get(0);
+        assertEquals("Loft, top floor", loft.title());
+        assertEquals("Two lines:\nfirst\r\nsecond", loft.description());
+        assertEquals("He said \"sunny\"", loft.location());
+        assertEquals("1,250,000", loft.price());
+        ListingImportRow empty = rows.get(1);
+        assertEquals("", empty.title());
+        assertEquals("", empty.location());
+        assertEquals("5", empty.price());
+    }
+
+    @Test
+    void headerNamesAreNormalizedAndTheBomDropped() throws IOException {
+        List<ListingImportRow> rows = readCsv("\uFEFFTitle,Zip Code,agentEmail,image-folder\n"
+                + "Corner condo,60601,a@example.com,condo\n");
+
+        assertEquals(new ListingImportRow(1, "Corner condo", null, null, null, "60601", null, "a@example.com",
+                "condo"), rows.get(0));
+    }
+
+    @Test
+    void blankLinesAreSkippedAndShortRecordsLeaveFieldsMissing() throws IOException {
+        List<ListingImportRow> rows = readCsv("title,price,size\n\nFirst,1,100\n\r\n\nSecond\n\n");
+
+        assertEquals(2, rows.size());
+        assertEquals(2, rows.get(1).number());
+        assertEquals("Second", rows.get(1).title());
+        assertNull(rows.get(1).price());
+        assertNull(rows.get(1).size());
+    }
+
+    @Test
+    void lastRecordNeedsNoLineBreak() throws IOException {
+        List<ListingImportRow> rows = readCsv("title,price\nOnly,\"10\"");
+
+        assertEquals(1, rows.size());
+        assertEquals("10", rows.get(0).price());
+    }
+
+    @Test
+    void unterminatedQuoteIsAnError() throws IOException {
+        Path file = write("bad.csv", "title,price\nGood,1\n\"Never closed,2\nMore,3\n");
+
+        try (ListingImportReader reader = ListingImportReader.open(file, ListingImportReader.Format.CSV)) {
+            assertEquals("Good", reader.next().title());
+            IOException e = assertThrows(IOException.class, reader::next);
+            assertTrue(e.getMessage().contains("record 2"), e.getMessage());
+        }
+    }
+
+    @Test
+    void emptyCsvHasNoHeader() throws IOException {
+        Path file = write("empty.csv", "");
+
+        assertThrows(IOException.class, () -> ListingImportReader.open(file, ListingImportReader.Format.CSV));
+    }
+
+    @Test
+    void jsonAcceptsBothKeyStyles() throws IOException {
+        Path file = write("listings.json", """
+                [
+                  {"title": "Brick bungalow", "price": 350000, "zip_code": "60618", "agentEmail": "a@example.com"},
+                  {"title": "Garden flat", "price": null, "imageFolder": "garden", "extra": {"ignored": true}}
+                ]
+                """);
+
+        List<ListingImportRow> rows = read(file, ListingImportReader.Format.JSON);
+
+        assertEquals(new ListingImportRow(1, "Brick bungalow", "350000", null, null, "60618", null,
+                "a@example.com", null), rows.get(0));
+        assertNull(rows.get(1).price());
+        assertEquals("garden", rows.get(1).imageFolder());
+    }
+
+    @Test
+    void jsonMustBeAnArray() throws IOException {
+        Path file = write("listing.json", "{\"title\": \"Brick bungalow\"}");
+
+        assertThrows(IOException.class, () -> ListingImportReader.open(file, ListingImportReader.Format.JSON));
+    }
+
+    @Test
+    void formatComesFromTheExtension() {
+        assertEquals(ListingImportReader.Format.CSV, ListingImportReader.Format.of("Listings.CSV"));
+        assertEquals(ListingImportReader.Format.JSON, ListingImportReader.Format.of("listings.json"));
+        assertThrows(IllegalArgumentException.class, () -> ListingImportReader.Format.of("listings.xlsx"));
+        assertThrows(IllegalArgumentException.class, () -> ListingImportReader.Format.of(null));
+    }
+
+    private List<ListingImportRow> readCsv(String content) throws IOException {
+        return read(write("listings.csv", content), ListingImportReader.Format.CSV);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<ListingImportRow> read(Path file, ListingImportReader.Format format) throws IOException {
+        List<ListingImportRow> rows = new ArrayList<>();
+        try (ListingImportReader reader = ListingImportReader.open(file, format)) {
+            ListingImportRow row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,134 @@
+package edu.final_project.hot_properties.services.imports;
+
+import edu.final_project.hot_properties.entities.Role;
+import edu.final_project.hot_properties.entities.RoleEnum;
+import edu.final_project.hot_properties.entities.User;
+import edu.final_project.hot_properties.repositories.UserRepository;
+import edu.final_project.hot_properties.services.geo.ZipCentroids;
+import edu.final_project.hot_properties.services.images.ImageStore;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ListingImporterTest {
+
+    private static final String HEADER = "title,price,description,location,zip_code,size,agent_email\n";
+
+    private String importDir;
+    private ListingBatchWriter batchWriter;
+    private ListingImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        importDir = "target/listing-importer-test-" + UUID.randomUUID();
+        batchWriter = mock(ListingBatchWriter.class);
+        UserRepository users = mock(UserRepository.class);
+        User agent = mock(User.class);
+        when(agent.getId()).thenReturn(7L);
+        when(agent.getRole()).thenReturn(new Role(RoleEnum.AGENT.name()));
+        when(users.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(users.findByEmail("agent@example.com")).thenReturn(Optional.of(agent));
+        importer = new ListingImporter(batchWriter, mock(ImageStore.class), users, new ZipCentroids(),
+                Validation.buildDefaultValidatorFactory().getValidator(), mock(NamedParameterJdbcTemplate.class),
+                importDir, 3, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        importer.shutdown();
+        Path root = Paths.get(System.getProperty("user.dir"), importDir);
+        if (Files.exists(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test
+    void rejectedRowsDoNotSinkTheirBatch() throws Exception {
+        when(batchWriter.write(anyList())).thenAnswer(invocation -> 0);
+
+        ListingImportJob job = runImport(HEADER
+                + "Brick bungalow,350000,Quiet street,Chicago,60618,1200,agent@example.com\n"
+                + "Garden flat,cheap,Close to the lake,Chicago,60614,900,agent@example.com\n"
+                + "Corner condo,410000,Sunny,Chicago,60601,1100,nobody@example.com\n"
+                + "Brick bungalow,360000,Same title again,Chicago,60618,1300,agent@example.com\n"
+                + "Upper flat,250000,Near transit,Chicago,60614,950,agent@example.com\n");
+
+        Map<String, Object> result = job.snapshot();
+        assertEquals(ListingImportJob.Status.DONE, result.get("status"));
+        assertEquals(5L, result.get("read"));
+        assertEquals(2L, result.get("imported"));
+        assertEquals(3L, result.get("rejected"));
+        assertEquals(List.of("Record 2: price is not a number", "Record 3: no agent with email nobody@example.com",
+                "Record 4: a listing titled \"Brick bungalow\" already exists"), result.get("errors"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ListingBatchWriter.Listing>> batches = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter, times(2)).write(batches.capture());
+        assertEquals(List.of(1L), batches.getAllValues().get(0).stream().map(ListingBatchWriter.Listing::number).toList());
+        assertEquals(List.of(5L), batches.getAllValues().get(1).stream().map(ListingBatchWriter.Listing::number).toList());
+        ListingBatchWriter.Listing first = batches.getAllValues().get(0).get(0);
+        assertEquals(7L, first.agentId());
+        assertEquals(350_000.0, first.price());
+    }
+
+    @Test
+    void failedBatchLosesOnlyItsOwnRows() throws Exception {
+        when(batchWriter.write(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenAnswer(invocation -> 0);
+
+        ListingImportJob job = runImport(HEADER
+                + "First,100000,One,Chicago,60618,1000,agent@example.com\n"
+                + "Second,200000,Two,Chicago,60618,1000,agent@example.com\n"
+                + "Third,300000,Three,Chicago,60618,1000,agent@example.com\n"
+                + "Fourth,400000,Four,Chicago,60618,1000,agent@example.com\n");
+
+        Map<String, Object> result = job.snapshot();
+        assertEquals(ListingImportJob.Status.DONE, result.get("status"));
+        assertEquals(1L, result.get("imported"));
+        assertEquals(3L, result.get("rejected"));
+        assertEquals(1L, result.get("batchesFailed"));
+        assertEquals(1L, result.get("batchesCommitted"));
+        assertTrue(((List<?>) result.get("errors")).get(0).toString().startsWith("Records 1-3 not imported"));
+    }
+
+    private ListingImportJob runImport(String csv) throws Exception {
+        ListingImportJob job = importer.submit(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                "listings.csv");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "import did not finish");
+        return job;
+    }
+}
@@ -0,0 +1,207 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.dtos.PropertyCard;
+import edu.final_project.hot_properties.dtos.PropertyFacets;
+import edu.final_project.hot_properties.dtos.PropertyPage;
+import edu.final_project.hot_properties.services.geo.GeoArea;
+import edu.final_project.hot_properties.services.images.ImageVariantsReadyEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BrowseResultCacheTest {
+
+    // zip 60618 and at least $500k, showing listing 1
+    private static final BrowseResultCache.Key EXPENSIVE_60618 = key(
+            new ListingQuery(null, "60618", null, 500_000.0, null, null, ListingQuery.SORT_PRICE_ASC));
+
+    private final BrowseResultCache cache = new BrowseResultCache(100, 60);
+
+    @Test
+    void hitDoesNotRunTheLoaderAgain() {
+        AtomicInteger loads = new AtomicInteger();
+        PropertyPage first = cache.getOrLoad(EXPENSIVE_60618, () -> {
+            loads.incrementAndGet();
+            return page(1L);
+        });
+
+        assertSame(first, cache.getOrLoad(EXPENSIVE_60618, () -> {
+            loads.incrementAndGet();
+            return page(1L);
+        }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void listingMovingIntoTheFilterDropsTheEntry() {
+        load(EXPENSIVE_60618, page(1L));
+
+        cache.onListingChanged(changed(row(9, 200_000, "60601"), row(9, 650_000, "60618")));
+
+        assertNull(cache.get(EXPENSIVE_60618));
+    }
+
+    @Test
+    void listingMovingOutOfTheFilterDropsTheEntry() {
+        load(EXPENSIVE_60618, page(1L));
+
+        cache.onListingChanged(changed(row(9, 650_000, "60618"), row(9, 200_000, "60601")));
+
+        assertNull(cache.get(EXPENSIVE_60618));
+    }
+
+    @Test
+    void listingCountedOnlyInAFacetDropsTheEntry() {
+        load(EXPENSIVE_60618, page(1L));
+
+        // misses the zip filter only, so the zip facet counts it
+        cache.onListingChanged(changed(null, row(9, 650_000, "60601")));
+
+        assertNull(cache.get(EXPENSIVE_60618));
+    }
+
+    @Test
+    void unrelatedListingKeepsTheEntry() {
+        load(EXPENSIVE_60618, page(1L));
+
+        cache.onListingChanged(changed(row(9, 200_000, "60601"), row(9, 250_000, "60601")));
+
+        assertNotNull(cache.get(EXPENSIVE_60618));
+    }
+
+    @Test
+    void listingOnThePageDropsTheEntryWhateverItsFilters() {
+        load(EXPENSIVE_60618, page(1L, 9L));
+
+        cache.onListingChanged(changed(row(9, 200_000, "60601"), row(9, 250_000, "60601")));
+
+        assertNull(cache.get(EXPENSIVE_60618));
+    }
+
+    @Test
+    void keywordQueryIsDroppedOnAnyChange() {
+        BrowseResultCache.Key keyword = key(
+                new ListingQuery("garden", null, null, null, null, null, ListingQuery.SORT_RELEVANCE));
+        load(keyword, page(1L));
+        load(EXPENSIVE_60618, page(1L));
+
+        cache.onListingChanged(changed(row(9, 200_000, "60601"), row(9, 250_000, "60601")));
+
+        assertNull(cache.get(keyword));
+        assertNotNull(cache.get(EXPENSIVE_60618));
+    }
+
+    @Test
+    void listingOutsideTheAreaKeepsTheEntry() {
+        BrowseResultCache.Key area = key(new ListingQuery(null, null, null, null, null,
+                GeoArea.box(41.9, -87.8, 42.0, -87.6), ListingQuery.SORT_ID_DESC));
+        load(area, page(1L));
+
+        cache.onListingChanged(changed(null, new ListingRow(9L, 300_000.0, 1000, "10001", 40.75, -73.99, 0, 0L)));
+        assertNotNull(cache.get(area));
+
+        cache.onListingChanged(changed(null, new ListingRow(9L, 300_000.0, 1000, "60618", 41.95, -87.7, 0, 0L)));
+        assertNull(cache.get(area));
+    }
+
+    @Test
+    void favoriteDropsPopularityPagesAndPagesShowingTheListing() {
+        BrowseResultCache.Key popular = key(
+                new ListingQuery(null, null, null, null, null, null, ListingQuery.SORT_POPULAR));
+        BrowseResultCache.Key newest = key(
+                new ListingQuery(null, null, null, null, null, null, ListingQuery.SORT_ID_DESC));
+        load(popular, page(1L));
+        load(newest, page(2L));
+        load(EXPENSIVE_60618, page(3L));
+
+        cache.onFavoriteCountChanged(new FavoriteCountChangedEvent(3L, 1));
+
+        assertNull(cache.get(popular));
+        assertNotNull(cache.get(newest));
+        assertNull(cache.get(EXPENSIVE_60618));
+    }
+
+    @Test
+    void newImageVariantsDropPagesShowingTheListing() {
+        load(EXPENSIVE_60618, page(1L));
+
+        cache.onImageVariantsReady(new ImageVariantsReadyEvent(2L));
+        assertNotNull(cache.get(EXPENSIVE_60618));
+
+        cache.onImageVariantsReady(new ImageVariantsReadyEvent(1L));
+        assertNull(cache.get(EXPENSIVE_60618));
+    }
+
+    @Test
+    void loadThatRacedAnInvalidationIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        PropertyPage stale = cache.getOrLoad(EXPENSIVE_60618, () -> {
+            loads.incrementAndGet();
+            // a write commits while the page is being computed
+            cache.onListingChanged(changed(row(9, 200_000, "60601"), row(9, 650_000, "60618")));
+            return page(1L);
+        });
+
+        assertNotNull(stale);
+        assertNull(cache.get(EXPENSIVE_60618));
+        cache.getOrLoad(EXPENSIVE_60618, () -> {
+            loads.incrementAndGet();
+            return page(1L, 9L);
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void pageComputedBeforeAnUnrelatedChangeIsNotCachedEither() {
+        long computedAt = cache.generation();
+        cache.onFavoriteCountChanged(new FavoriteCountChangedEvent(42L, 1));
+
+        cache.put(EXPENSIVE_60618, page(1L), computedAt);
+
+        assertNull(cache.get(EXPENSIVE_60618));
+    }
+
+    @Test
+    void expiredEntryIsAMiss() {
+        BrowseResultCache expiring = new BrowseResultCache(100, 0);
+        expiring.put(EXPENSIVE_60618, page(1L), expiring.generation());
+
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertNull(expiring.get(EXPENSIVE_60618));
+    }
+
+    private void load(BrowseResultCache.Key key, PropertyPage page) {
+        cache.getOrLoad(key, () -> page);
+        assertNotNull(cache.get(key));
+    }
+
+    private static BrowseResultCache.Key key(ListingQuery query) {
+        return new BrowseResultCache.Key(query, null, 20);
+    }
+
+    private static PropertyPage page(Long... ids) {
+        List<PropertyCard> cards = List.of(ids).stream()
+                .map(id -> new PropertyCard(id, "Listing " + id, 600_000.0, "Chicago", 1000, "60618", null, 0))
+                .toList();
+        return new PropertyPage(cards, null, PropertyFacets.EMPTY);
+    }
+
+    private static ListingChangedEvent changed(ListingRow before, ListingRow after) {
+        Long id = after != null ? after.id() : before.id();
+        return new ListingChangedEvent(id, before, after, null);
+    }
+
+    private static ListingRow row(long id, double price, String zip) {
+        return new ListingRow(id, price, 1000, zip, null, null, 0, 0L);
+    }
+}
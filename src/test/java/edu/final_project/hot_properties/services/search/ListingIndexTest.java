@@ -0,0 +1,226 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.dtos.PropertyFacets;
+import edu.final_project.hot_properties.repositories.PropertyRepository;
+import edu.final_project.hot_properties.services.PropertyCursor;
+import edu.final_project.hot_properties.services.geo.GeoArea;
+import edu.final_project.hot_properties.services.geo.GeoPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ListingIndexTest {
+
+    // three listings share 300k and three share 2 favorites, so page boundaries fall inside ties
+    private static final List<ListingRow> ROWS = List.of(
+            row(1, 300_000, 1000, "60618", 41.95, -87.70, 0),
+            row(2, 300_000, 1500, "60618", 41.96, -87.71, 2),
+            row(3, 200_000, 800, "60614", 41.92, -87.65, 2),
+            row(4, 300_000, 2000, "60614", null, null, 5),
+            row(5, 500_000, 2500, "60618", 41.95, -87.70, 0),
+            row(6, 200_000, 1200, "60601", 41.88, -87.62, 1),
+            row(7, 750_000, 3000, "60601", 41.89, -87.63, 2));
+
+    private ListingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        PropertyRepository repository = mock(PropertyRepository.class);
+        when(repository.findAllListingRows()).thenReturn(ROWS);
+        index = new ListingIndex(repository);
+        index.rebuild();
+    }
+
+    @Test
+    void pagesStayInOrderAcrossCursorsWithTiedKeys() {
+        assertEquals(List.of(3L, 6L, 1L, 2L, 4L, 5L, 7L), allPages(query(ListingQuery.SORT_PRICE_ASC), 2));
+        assertEquals(List.of(7L, 5L, 4L, 2L, 1L, 6L, 3L), allPages(query(ListingQuery.SORT_PRICE_DESC), 2));
+        assertEquals(List.of(7L, 6L, 5L, 4L, 3L, 2L, 1L), allPages(query(ListingQuery.SORT_ID_DESC), 2));
+        assertEquals(List.of(4L, 7L, 3L, 2L, 6L, 5L, 1L), allPages(query(ListingQuery.SORT_POPULAR), 2));
+    }
+
+    @Test
+    void pageSizeDoesNotChangeTheOrder() {
+        for (int limit = 1; limit <= 8; limit++) {
+            assertEquals(List.of(3L, 6L, 1L, 2L, 4L, 5L, 7L), allPages(query(ListingQuery.SORT_PRICE_ASC), limit));
+        }
+    }
+
+    @Test
+    void filtersCombineWithTheCursor() {
+        ListingQuery zip = new ListingQuery(null, "60618", null, null, null, null, ListingQuery.SORT_PRICE_ASC);
+        assertEquals(List.of(1L, 2L, 5L), allPages(zip, 1));
+
+        ListingQuery priceRange = new ListingQuery(null, null, null, 250_000.0, 600_000.0, null,
+                ListingQuery.SORT_PRICE_DESC);
+        assertEquals(List.of(5L, 4L, 2L, 1L), allPages(priceRange, 3));
+
+        ListingQuery size = new ListingQuery(null, null, 1500, null, null, null, ListingQuery.SORT_POPULAR);
+        assertEquals(List.of(4L, 7L, 2L, 5L), allPages(size, 2));
+    }
+
+    @Test
+    void noMatchesGiveAnEmptyPageWithoutCursor() {
+        ListingQuery none = new ListingQuery(null, "99999", null, null, null, null, ListingQuery.SORT_PRICE_ASC);
+        ListingIndex.Page page = index.page(none, null, null, 10);
+
+        assertTrue(page.ids().isEmpty());
+        assertNull(page.next());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        ListingIndex.Page page = index.page(query(ListingQuery.SORT_ID_DESC), null, null, 7);
+
+        assertEquals(7, page.ids().size());
+        assertNull(page.next());
+    }
+
+    @Test
+    void areasOnlyMatchListingsWithCoordinatesInside() {
+        GeoArea box = GeoArea.box(41.94, -87.72, 41.97, -87.69);
+        assertEquals(List.of(5L, 2L, 1L), allPages(area(box), 10));
+
+        // listing 2 is about 0.85 miles from the center
+        GeoArea circle = GeoArea.circle(new GeoPoint(41.95, -87.70), 0.5);
+        assertEquals(List.of(5L, 1L), allPages(area(circle), 10));
+
+        GeoArea everywhere = GeoArea.box(-90, -180, 90, 180);
+        assertEquals(List.of(7L, 6L, 5L, 3L, 2L, 1L), allPages(area(everywhere), 10));
+    }
+
+    @Test
+    void facetsCountEachDimensionWithoutItsOwnFilter() {
+        ListingQuery zip = new ListingQuery(null, "60618", null, null, null, null, ListingQuery.SORT_ID_DESC);
+        PropertyFacets facets = index.facets(zip, null);
+
+        assertEquals(Map.of("60618", 3, "60614", 2, "60601", 2), facets.zipCodes());
+        assertEquals(List.of(0, 2, 1, 0, 0, 0), counts(facets.priceBands()));
+        assertEquals(List.of(0, 2, 1, 0, 0), counts(facets.sizeBands()));
+    }
+
+    @Test
+    void favoriteMovesOneListingInThePopularityOrder() {
+        index.onFavoriteCountChanged(new FavoriteCountChangedEvent(1L, 9));
+        assertEquals(List.of(1L, 4L, 7L, 3L, 2L, 6L, 5L), allPages(query(ListingQuery.SORT_POPULAR), 3));
+
+        index.onFavoriteCountChanged(new FavoriteCountChangedEvent(4L, -5));
+        assertEquals(List.of(1L, 7L, 3L, 2L, 6L, 5L, 4L), allPages(query(ListingQuery.SORT_POPULAR), 3));
+    }
+
+    @Test
+    void withFavoritesCountCopiesOnlyTheCountsAndPopularityOrder() {
+        ListingIndex.Snapshot snapshot = ListingIndex.Snapshot.build(ROWS);
+        int ord = snapshot.ordinalOf(3);
+
+        ListingIndex.Snapshot patched = snapshot.withFavoritesCount(ord, 3);
+
+        assertEquals(3, patched.favorites[ord]);
+        assertEquals(2, snapshot.favorites[ord], "the published snapshot must not change");
+        assertArrayEquals(ListingIndex.Snapshot.build(withCount(3, 3)).byPopularity, patched.byPopularity);
+        assertSame(snapshot.byPrice, patched.byPrice);
+        assertSame(snapshot.zipBitmaps, patched.zipBitmaps);
+    }
+
+    @Test
+    void deletedListingLeavesEveryOrder() {
+        index.onListingChanged(new ListingChangedEvent(2L, ROWS.get(1), null, null));
+
+        assertEquals(List.of(3L, 6L, 1L, 4L, 5L, 7L), allPages(query(ListingQuery.SORT_PRICE_ASC), 2));
+        assertEquals(List.of(4L, 7L, 3L, 6L, 5L, 1L), allPages(query(ListingQuery.SORT_POPULAR), 2));
+        assertNull(index.versionOf(2L));
+    }
+
+    @Test
+    void changeCommittedWhileRebuildingIsKept() {
+        PropertyRepository repository = mock(PropertyRepository.class);
+        ListingIndex rebuilding = new ListingIndex(repository);
+        // the read returns the rows as they were before the edit and the new listing committed
+        when(repository.findAllListingRows()).thenAnswer(invocation -> {
+            rebuilding.onListingChanged(new ListingChangedEvent(3L, ROWS.get(2),
+                    row(3, 900_000, 800, "60614", 41.92, -87.65, 2), null));
+            rebuilding.onListingChanged(new ListingChangedEvent(8L, null,
+                    row(8, 100_000, 700, "60601", null, null, 0), null));
+            return ROWS;
+        });
+
+        rebuilding.rebuild();
+
+        assertEquals(List.of(8L, 6L, 1L, 2L, 4L, 5L, 7L, 3L),
+                allPages(rebuilding, query(ListingQuery.SORT_PRICE_ASC), 3));
+    }
+
+    @Test
+    void failedStartupBuildIsRetried() {
+        PropertyRepository repository = mock(PropertyRepository.class);
+        when(repository.findAllListingRows())
+                .thenThrow(new IllegalStateException("database not up"))
+                .thenThrow(new IllegalStateException("database not up"))
+                .thenReturn(ROWS);
+        ListingIndex retried = new ListingIndex(repository);
+
+        retried.retryFailedBuild();
+        retried.buildOnStartup();
+        assertFalse(retried.isReady());
+        retried.retryFailedBuild();
+        assertFalse(retried.isReady());
+        retried.retryFailedBuild();
+        assertTrue(retried.isReady());
+        assertEquals(7, retried.size());
+
+        retried.retryFailedBuild();
+        verify(repository, times(3)).findAllListingRows();
+    }
+
+    // follows the next-page cursor through its token, as the browse page does
+    private List<Long> allPages(ListingQuery query, int limit) {
+        return allPages(index, query, limit);
+    }
+
+    private static List<Long> allPages(ListingIndex index, ListingQuery query, int limit) {
+        List<Long> ids = new ArrayList<>();
+        PropertyCursor after = null;
+        do {
+            ListingIndex.Page page = index.page(query, null, after, limit);
+            assertTrue(page.ids().size() <= limit);
+            ids.addAll(page.ids());
+            after = page.next() != null
+                    ? PropertyCursor.decode(page.next().encode(), query.sortOrder()) : null;
+        } while (after != null);
+        return ids;
+    }
+
+    private static ListingQuery query(String sortOrder) {
+        return new ListingQuery(null, null, null, null, null, null, sortOrder);
+    }
+
+    private static ListingQuery area(GeoArea area) {
+        return new ListingQuery(null, null, null, null, null, area, ListingQuery.SORT_ID_DESC);
+    }
+
+    private static List<Integer> counts(List<PropertyFacets.Bucket> buckets) {
+        return buckets.stream().map(PropertyFacets.Bucket::count).toList();
+    }
+
+    private static List<ListingRow> withCount(long id, int count) {
+        return ROWS.stream().map(row -> row.id() == id ? row.withFavoritesCount(count) : row).toList();
+    }
+
+    private static ListingRow row(long id, double price, int size, String zip, Double lat, Double lng, int favorites) {
+        return new ListingRow(id, price, size, zip, lat, lng, favorites, 0L);
+    }
+}
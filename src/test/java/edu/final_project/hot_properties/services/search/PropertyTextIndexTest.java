@@ -0,0 +1,121 @@
+package edu.final_project.hot_properties.services.search;
+
+import edu.final_project.hot_properties.repositories.PropertyRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PropertyTextIndexTest {
+
+    @Test
+    void tokenizeDropsStopWordsAndSingleCharacters() {
+        assertEquals(List.of("loft", "main", "st", "chicago", "60618"),
+                PropertyTextIndex.tokenize("The Loft at 5 N. Main St, Chicago 60618"));
+        assertEquals(List.of("café", "über"), PropertyTextIndex.tokenize("Café & Über"));
+        assertTrue(PropertyTextIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        PropertyTextIndex index = index(
+                text(1, "Brick bungalow", "Quiet street with a garden"),
+                text(2, "Brick loft", "Exposed beams"),
+                text(3, "Garden apartment", "Close to the lake"));
+
+        assertEquals(List.of(1L), ids(index.search("brick garden")));
+        assertEquals(List.of(2L, 1L), ids(index.search("brick")));
+        assertTrue(index.search("brick lake").isEmpty());
+        assertTrue(index.search("penthouse").isEmpty());
+    }
+
+    @Test
+    void queryOfOnlyStopWordsMatchesNothing() {
+        PropertyTextIndex index = index(text(1, "The house", "A house on the hill"));
+
+        assertTrue(index.search("the a of").isEmpty());
+    }
+
+    @Test
+    void titleMatchOutranksDescriptionMatch() {
+        PropertyTextIndex index = index(
+                text(1, "Garden apartment", "Two bedrooms near transit"),
+                text(2, "Upper apartment", "Two bedrooms near garden"));
+
+        assertEquals(List.of(1L, 2L), ids(index.search("garden")));
+    }
+
+    @Test
+    void equalScoresRankNewestFirst() {
+        PropertyTextIndex index = index(
+                text(4, "Corner condo", "Sunny"),
+                text(9, "Corner condo", "Sunny"),
+                text(6, "Corner condo", "Sunny"));
+
+        assertEquals(List.of(9L, 6L, 4L), ids(index.search("corner condo")));
+    }
+
+    @Test
+    void editReplacesTheOldPostings() {
+        PropertyTextIndex index = index(
+                text(1, "Brick bungalow", "Quiet street with a garden"),
+                text(2, "Brick loft", "Exposed beams"),
+                text(3, "Garden apartment", "Close to the lake"));
+
+        ListingText edited = text(1, "Frame cottage", "Busy street, no yard at all");
+        index.onListingChanged(changed(edited));
+
+        assertEquals(List.of(2L), ids(index.search("brick")));
+        assertEquals(List.of(3L), ids(index.search("garden")));
+        assertEquals(List.of(1L), ids(index.search("cottage")));
+        // lengths and document counts match an index built from the current text alone
+        PropertyTextIndex fresh = index(edited, text(2, "Brick loft", "Exposed beams"),
+                text(3, "Garden apartment", "Close to the lake"));
+        for (String query : List.of("brick", "garden", "cottage", "street", "loft beams")) {
+            assertEquals(fresh.search(query), index.search(query), query);
+        }
+    }
+
+    @Test
+    void deleteRemovesTheListing() {
+        PropertyTextIndex index = index(
+                text(1, "Brick bungalow", "Garden"),
+                text(2, "Brick loft", "Beams"));
+
+        index.onListingChanged(new ListingChangedEvent(1L, row(1), null, null));
+
+        assertEquals(List.of(2L), ids(index.search("brick")));
+        assertTrue(index.search("garden").isEmpty());
+        assertEquals(index(text(2, "Brick loft", "Beams")).search("brick"), index.search("brick"));
+    }
+
+    private static PropertyTextIndex index(ListingText... texts) {
+        PropertyRepository repository = mock(PropertyRepository.class);
+        when(repository.findAllListingTexts()).thenReturn(List.of(texts));
+        PropertyTextIndex index = new PropertyTextIndex(repository);
+        index.rebuild();
+        return index;
+    }
+
+    private static List<Long> ids(Map<Long, Double> ranked) {
+        return new ArrayList<>(ranked.keySet());
+    }
+
+    private static ListingText text(long id, String title, String description) {
+        return new ListingText(id, title, description, "Chicago, IL 60618");
+    }
+
+    private static ListingChangedEvent changed(ListingText text) {
+        return new ListingChangedEvent(text.id(), row(text.id()), row(text.id()), text);
+    }
+
+    private static ListingRow row(long id) {
+        return new ListingRow(id, 300_000.0, 1000, "60618", null, null, 0, 0L);
+    }
+}
@@ -0,0 +1,138 @@
+package edu.final_project.hot_properties.services.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    @Test
+    void burstOfIdenticalCallsRunsTheLoaderOnce() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 200;
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> flight.execute("zip=60618", () -> {
+                queries.incrementAndGet();
+                loaderStarted.countDown();
+                await(release);
+                return "page";
+            })));
+            loaderStarted.await(5, TimeUnit.SECONDS);
+
+            for (int i = 1; i < callers; i++) {
+                results.add(pool.submit(() -> flight.execute("zip=60618", () -> {
+                    queries.incrementAndGet();
+                    return "page";
+                })));
+            }
+            // let every follower reach the in-flight load before it completes
+            while (flight.coalesced() < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("page", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, queries.get());
+        assertEquals(1, flight.executions());
+        assertEquals(callers - 1, flight.coalesced());
+    }
+
+    @Test
+    void distinctKeysDoNotShareLoads() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> a = pool.submit(() -> flight.execute("a", () -> {
+                bothStarted.countDown();
+                await(release);
+                return "a";
+            }));
+            Future<String> b = pool.submit(() -> flight.execute("b", () -> {
+                bothStarted.countDown();
+                await(release);
+                return "b";
+            }));
+            // neither load waits for the other
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            assertEquals("a", a.get(5, TimeUnit.SECONDS));
+            assertEquals("b", b.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, flight.executions());
+        assertEquals(0, flight.coalesced());
+    }
+
+    @Test
+    void followersSeeTheLeadersException() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute("k", () -> {
+                leaderStarted.countDown();
+                await(release);
+                throw failure;
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+            Future<String> follower = pool.submit(() -> flight.execute("k", () -> "not run"));
+            while (flight.coalesced() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertSame(failure, assertThrows(ExecutionException.class,
+                    () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+            assertSame(failure, assertThrows(ExecutionException.class,
+                    () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, flight.executions());
+
+        // the failed load is not remembered
+        assertEquals("ok", flight.execute("k", () -> "ok"));
+        assertEquals(2, flight.executions());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}